@@ -2,6 +2,7 @@ package com.joe.springsecurity;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
@@ -9,7 +10,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class SpringsecurityApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(SpringsecurityApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringsecurityApplication.class);
+		// -Dapp.startup.metrics=true records startup steps; StartupMetricsReporter logs the slowest ones
+		if (Boolean.getBoolean("app.startup.metrics")) {
+			application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		}
+		application.run(args);
 	}
 
 
@@ -0,0 +1,26 @@
+package com.joe.springsecurity.audit.annotation;
+
+import com.joe.springsecurity.audit.model.ActionType;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method whose successful completion is written to the audit log by AuditLogAspect.
+ * sampleRate below 1.0 records only that fraction of calls, for high-volume actions; it can be overridden
+ * per action with app.audit.sample-rate.&lt;ACTION&gt;.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Audited {
+
+    ActionType action();
+
+    String details() default "";
+
+    double sampleRate() default 1.0;
+}
@@ -0,0 +1,82 @@
+package com.joe.springsecurity.audit.controller;
+
+import com.joe.springsecurity.audit.model.AuditTimeBucket;
+import com.joe.springsecurity.audit.service.AuditLogService;
+import com.joe.springsecurity.audit.service.AuditPartitionManager;
+import com.joe.springsecurity.errorhandling.ErrorResponse;
+import com.joe.springsecurity.utils.PageResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/v2/audit-logs")
+@PreAuthorize("hasRole('SUPER_ADMIN')")
+public class AuditLogController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogController.class);
+
+    private final AuditLogService auditLogService;
+    private final AuditPartitionManager auditPartitionManager;
+
+    public AuditLogController(AuditLogService auditLogService, AuditPartitionManager auditPartitionManager) {
+        this.auditLogService = auditLogService;
+        this.auditPartitionManager = auditPartitionManager;
+    }
+
+    // e.g. /api/v2/audit-logs?from=2026-10-01T00:00:00&to=2026-10-08T00:00:00&username=jdoe&action=UPDATE_ITEM
+    @GetMapping
+    public ResponseEntity<?> getAuditLogs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String action,
+            Pageable pageable) {
+        try {
+            return ResponseEntity.ok(PageResponse.of(auditLogService.findAuditLogs(from, to, username, action, pageable)));
+        } catch (ResponseStatusException e) {
+            logger.warn("Response status exception: {}", e.getMessage());
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse("BAD_REQUEST", e.getReason()));
+        } catch (Exception e) {
+            logger.error("Internal server error while fetching audit logs", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to fetch audit logs: " + e.getMessage()));
+        }
+    }
+
+    // Event counts per action and hour, day or month, for charts
+    @GetMapping("/stats")
+    public ResponseEntity<?> getAuditLogStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "DAY") AuditTimeBucket bucket,
+            @RequestParam(required = false) String username) {
+        try {
+            return ResponseEntity.ok(auditLogService.countAuditLogs(from, to, bucket, username));
+        } catch (ResponseStatusException e) {
+            logger.warn("Response status exception: {}", e.getMessage());
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse("BAD_REQUEST", e.getReason()));
+        } catch (Exception e) {
+            logger.error("Internal server error while counting audit logs", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to count audit logs: " + e.getMessage()));
+        }
+    }
+
+    // Current partitions and their exclusive upper bounds (null for p_future)
+    @GetMapping("/partitions")
+    public ResponseEntity<?> getPartitions() {
+        return ResponseEntity.ok(auditPartitionManager.partitions());
+    }
+}
@@ -0,0 +1,11 @@
+package com.joe.springsecurity.audit.dto;
+
+// One row of AuditLogRepository.countByBucket: events of one action within one time bucket
+public interface AuditLogBucket {
+
+    String getBucket();
+
+    String getAction();
+
+    long getTotal();
+}
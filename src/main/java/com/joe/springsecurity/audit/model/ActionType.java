@@ -5,9 +5,33 @@ public enum ActionType {
     CREATE_ITEM("CREATE_ITEM"),
     UPDATE_ITEM("UPDATE_ITEM"),
     DELETE_ITEM("DELETE_ITEM"),
+    ADJUST_STOCK("ADJUST_STOCK"),
+    RECORD_STOCK_MOVEMENT("RECORD_STOCK_MOVEMENT"),
+    CREATE_CATEGORY("CREATE_CATEGORY"),
+    UPDATE_CATEGORY("UPDATE_CATEGORY"),
+    DELETE_CATEGORY("DELETE_CATEGORY"),
+    BATCH_CREATE_CATEGORIES("BATCH_CREATE_CATEGORIES"),
+    BATCH_DELETE_CATEGORIES("BATCH_DELETE_CATEGORIES"),
     CREATE_COMPANY("CREATE_COMPANY"),
     UPDATE_COMPANY("UPDATE_COMPANY"),
-    DELETE_COMPANY("DELETE_COMPANY");
+    DELETE_COMPANY("DELETE_COMPANY"),
+    ENABLE_COMPANY("ENABLE_COMPANY"),
+    DISABLE_COMPANY("DISABLE_COMPANY"),
+    CREATE_COUNTRY("CREATE_COUNTRY"),
+    UPDATE_COUNTRY("UPDATE_COUNTRY"),
+    DELETE_COUNTRY("DELETE_COUNTRY"),
+    CREATE_EMAIL_CONFIG("CREATE_EMAIL_CONFIG"),
+    UPDATE_EMAIL_CONFIG("UPDATE_EMAIL_CONFIG"),
+    ACTIVATE_EMAIL_CONFIG("ACTIVATE_EMAIL_CONFIG"),
+    DEACTIVATE_EMAIL_CONFIG("DEACTIVATE_EMAIL_CONFIG"),
+    ASSIGN_USER_COMPANY("ASSIGN_USER_COMPANY"),
+    REMOVE_USER_COMPANY("REMOVE_USER_COMPANY"),
+    BULK_ASSIGN_COMPANIES("BULK_ASSIGN_COMPANIES"),
+    BULK_PROVISION_USERS("BULK_PROVISION_USERS"),
+    // Entity-level capture (EntityAuditListener)
+    ENTITY_CREATED("ENTITY_CREATED"),
+    ENTITY_UPDATED("ENTITY_UPDATED"),
+    ENTITY_DELETED("ENTITY_DELETED");
 
     private final String action;
 
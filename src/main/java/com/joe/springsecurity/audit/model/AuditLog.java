@@ -1,5 +1,9 @@
 package com.joe.springsecurity.audit.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.joe.springsecurity.audit.service.AuditChangeCodec;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
@@ -8,14 +12,30 @@ import java.time.LocalDateTime;
 public class AuditLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "audit_logs_seq")
+    @TableGenerator(name = "audit_logs_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_audit_logs", allocationSize = 50)
     private Long id;
 
     private String action;
     private String username;
     private String details;
+
+    // Partition key of cms_audit_logs (monthly RANGE partitions, see AuditPartitionManager)
+    @Column(nullable = false)
     private LocalDateTime timestamp;
 
+    // Set by entity-level capture only
+    private String entityType;
+    private Long entityId;
+    private Long companyId;
+
+    // Gzip-compressed JSON of the changed fields; serialized decoded through getChanges()
+    @Lob
+    @Column(name = "changes")
+    @JsonIgnore
+    private byte[] compressedChanges;
+
     // Constructors, Getters, and Setters
     public AuditLog() {}
 
@@ -26,6 +46,14 @@ public class AuditLog {
         this.timestamp = LocalDateTime.now();
     }
 
+    public AuditLog(String action, String username, String entityType, Long entityId, Long companyId, byte[] compressedChanges) {
+        this(action, username, entityType + " " + entityId);
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.companyId = companyId;
+        this.compressedChanges = compressedChanges;
+    }
+
     public Long getId() {
         return id;
     }
@@ -65,4 +93,43 @@ public class AuditLog {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public void setCompanyId(Long companyId) {
+        this.companyId = companyId;
+    }
+
+    @JsonIgnore
+    public byte[] getCompressedChanges() {
+        return compressedChanges;
+    }
+
+    public void setCompressedChanges(byte[] compressedChanges) {
+        this.compressedChanges = compressedChanges;
+    }
+
+    // Decoded JSON of the changed fields, for API responses
+    @JsonRawValue
+    public String getChanges() {
+        return compressedChanges != null ? AuditChangeCodec.decode(compressedChanges) : null;
+    }
 }
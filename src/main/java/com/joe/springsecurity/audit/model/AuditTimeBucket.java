@@ -0,0 +1,19 @@
+package com.joe.springsecurity.audit.model;
+
+// Bucket sizes for audit statistics, as MySQL DATE_FORMAT patterns
+public enum AuditTimeBucket {
+
+    HOUR("%Y-%m-%d %H:00"),
+    DAY("%Y-%m-%d"),
+    MONTH("%Y-%m");
+
+    private final String pattern;
+
+    AuditTimeBucket(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+}
@@ -1,9 +1,28 @@
 package com.joe.springsecurity.audit.repo;
 
+import com.joe.springsecurity.audit.dto.AuditLogBucket;
 import com.joe.springsecurity.audit.model.AuditLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
+
+    // Event counts per time bucket and action. The half-open timestamp range lets MySQL prune to the
+    // monthly partitions it covers; :pattern is an AuditTimeBucket pattern.
+    @Query(value = "SELECT DATE_FORMAT(a.`timestamp`, :pattern) AS bucket, a.action AS action, COUNT(*) AS total " +
+            "FROM cms_audit_logs a " +
+            "WHERE a.`timestamp` >= :from AND a.`timestamp` < :to " +
+            "AND (:username IS NULL OR a.username = :username) " +
+            "GROUP BY bucket, a.action ORDER BY bucket, a.action", nativeQuery = true)
+    List<AuditLogBucket> countByBucket(@Param("pattern") String pattern,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("username") String username);
 }
@@ -0,0 +1,44 @@
+package com.joe.springsecurity.audit.repo;
+
+import com.joe.springsecurity.audit.model.AuditLog;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Predicates for AuditLogRepository.findAll(Specification, Pageable). The time range is always present so
+ * MySQL prunes to the covered monthly partitions; username and action use their (column, timestamp) indexes.
+ */
+public final class AuditLogSpecifications {
+
+    private AuditLogSpecifications() {
+    }
+
+    public static Specification<AuditLog> matching(LocalDateTime from, LocalDateTime to, String username, String action) {
+        Specification<AuditLog> spec = Specification.where(between(from, to));
+        if (username != null && !username.trim().isEmpty()) {
+            spec = spec.and(byUsername(username.trim()));
+        }
+        if (action != null && !action.trim().isEmpty()) {
+            spec = spec.and(byAction(action.trim()));
+        }
+        return spec;
+    }
+
+    // Half-open [from, to), matching the partition boundaries
+    public static Specification<AuditLog> between(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.<LocalDateTime>get("timestamp"), from),
+                cb.lessThan(root.<LocalDateTime>get("timestamp"), to));
+    }
+
+    // idx_audit_logs_username_timestamp
+    public static Specification<AuditLog> byUsername(String username) {
+        return (root, query, cb) -> cb.equal(root.get("username"), username);
+    }
+
+    // idx_audit_logs_action_timestamp
+    public static Specification<AuditLog> byAction(String action) {
+        return (root, query, cb) -> cb.equal(root.get("action"), action);
+    }
+}
@@ -0,0 +1,48 @@
+package com.joe.springsecurity.audit.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed JSON for the audit log's changes column. Values are already reduced to strings, numbers,
+ * booleans and nulls by EntityAuditListener, so a plain ObjectMapper is enough.
+ */
+public final class AuditChangeCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private AuditChangeCodec() {
+    }
+
+    public static byte[] encode(Map<String, ?> changes) {
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(changes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(json);
+            }
+            return out.toByteArray();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Audit changes are not serializable", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String decode(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
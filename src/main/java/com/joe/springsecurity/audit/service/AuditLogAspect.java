@@ -1,98 +1,99 @@
 package com.joe.springsecurity.audit.service;
 
+import com.joe.springsecurity.audit.annotation.Audited;
 import com.joe.springsecurity.audit.model.ActionType;
 import com.joe.springsecurity.audit.model.AuditLog;
-import com.joe.springsecurity.audit.repo.AuditLogRepository;
 import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
-import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.env.Environment;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes an audit entry after each successful call to a method annotated with @Audited, once the surrounding
+ * transaction (if any) has committed. The annotation and its sample rate are resolved once per Method and
+ * cached, so a call costs one map lookup.
+ */
 @Aspect
 @Component
 public class AuditLogAspect {
 
-    @Autowired
-    private AuditLogRepository auditLogRepository;
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogAspect.class);
 
-    // Define pointcut for the create, update, and delete methods in InventoryItemService
-    @Pointcut("execution(* com.joe.springsecurity.inventory.service.InventoryItemService.createInventoryItem(..)) || " +
-            "execution(* com.joe.springsecurity.inventory.service.InventoryItemService.updateInventoryItem(..)) || " +
-            "execution(* com.joe.springsecurity.inventory.service.InventoryItemService.deleteInventoryItem(..))")
-    public void inventoryItemServiceMethods() {}
+    private final Map<Method, AuditMetadata> metadataCache = new ConcurrentHashMap<>();
 
-    // Define pointcut for the create, update, and delete methods in InventoryItemService
-    @Pointcut("execution(* com.joe.springsecurity.company.service.CompanyService.createCompany(..)) || " +
-            "execution(* com.joe.springsecurity.company.service.CompanyService.updateCompany(..)) || " +
-            "execution(* com.joe.springsecurity.company.service.CompanyService.deleteCompany(..))")
-    public void companyServiceMethods() {}
+    @Autowired
+    private AuditLogWriter auditLogWriter;
 
-    // Log the action before executing the method for InventoryItemService
-    @Before("inventoryItemServiceMethods()")
-    public void logBeforeInventoryItemOperations(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        String action = "";
-        String details = "";
+    @Autowired
+    private Environment environment;
 
-        // Determine the action and details based on method name
-        switch (methodName) {
-            case "createInventoryItem":
-                action = ActionType.CREATE_ITEM.getAction();
-                details = "Created a new inventory item.";
-                break;
-            case "updateInventoryItem":
-                action = ActionType.UPDATE_ITEM.getAction();
-                details = "Updated an inventory item.";
-                break;
-            case "deleteInventoryItem":
-                action = ActionType.DELETE_ITEM.getAction();
-                details = "Deleted an inventory item.";
-                break;
+    @AfterReturning("@annotation(com.joe.springsecurity.audit.annotation.Audited)")
+    public void logAudited(JoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        AuditMetadata metadata = metadataCache.computeIfAbsent(method, this::resolve);
+        if (metadata.sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= metadata.sampleRate) {
+            return;
         }
-        logAction(action, details, joinPoint);
+        logAction(metadata.action, metadata.details);
     }
 
-    // Log the action before executing the method for CompanyService
-    @Before("companyServiceMethods()")
-    public void logBeforeCompanyOperations(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        String action = "";
-        String details = "";
-
-        // Determine the action and details based on method name
-        switch (methodName) {
-            case "createCompany":
-                action = ActionType.CREATE_COMPANY.getAction();
-                details = "Created a new company.";
-                break;
-            case "updateCompany":
-                action = ActionType.UPDATE_COMPANY.getAction();
-                details = "Updated a company.";
-                break;
-            case "deleteCompany":
-                action = ActionType.DELETE_COMPANY.getAction();
-                details = "Deleted a company.";
-                break;
+    private AuditMetadata resolve(Method method) {
+        Audited audited = AnnotationUtils.findAnnotation(method, Audited.class);
+        if (audited == null) {
+            // Only reachable if the pointcut matched a bridge or proxy method without the annotation
+            logger.warn("No @Audited found on {}", method);
+            return new AuditMetadata(method.getName(), "", 1.0);
         }
-        logAction(action, details, joinPoint);
+        ActionType action = audited.action();
+        double sampleRate = environment.getProperty("app.audit.sample-rate." + action.name(), Double.class,
+                audited.sampleRate());
+        return new AuditMetadata(action.getAction(), audited.details(), Math.max(0.0, Math.min(1.0, sampleRate)));
     }
 
     // General method for logging actions
-    private void logAction(String action, String details, JoinPoint joinPoint) {
+    private void logAction(String action, String details) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication != null ? authentication.getName() : "Unknown";
 
-        // Log the details
-        try {
-            AuditLog auditLog = new AuditLog(action, username, details);
-            auditLogRepository.save(auditLog);
-        } catch (Exception e) {
-            // Handle the error gracefully (optional: log it)
-            System.err.println("Failed to save audit log: " + e.getMessage());
+        // Batched and persisted on the audit executor so the audited call does not wait for the insert.
+        // Inside a transaction the entry is only queued once it commits, so a rollback leaves no record.
+        AuditLog auditLog = new AuditLog(action, username, details);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditLogWriter.write(auditLog);
+                }
+            });
+        } else {
+            auditLogWriter.write(auditLog);
+        }
+    }
+
+    private static final class AuditMetadata {
+        private final String action;
+        private final String details;
+        private final double sampleRate;
+
+        private AuditMetadata(String action, String details, double sampleRate) {
+            this.action = action;
+            this.details = details;
+            this.sampleRate = sampleRate;
         }
     }
 
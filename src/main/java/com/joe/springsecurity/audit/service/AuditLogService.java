@@ -0,0 +1,69 @@
+package com.joe.springsecurity.audit.service;
+
+import com.joe.springsecurity.audit.dto.AuditLogBucket;
+import com.joe.springsecurity.audit.model.AuditLog;
+import com.joe.springsecurity.audit.model.AuditTimeBucket;
+import com.joe.springsecurity.audit.repo.AuditLogRepository;
+import com.joe.springsecurity.audit.repo.AuditLogSpecifications;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Audit queries. Every query takes a time range, capped at app.audit.max-query-days, so it only touches the
+ * monthly partitions that range covers.
+ */
+@Service
+public class AuditLogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogService.class);
+
+    private final AuditLogRepository auditLogRepository;
+    private final long maxQueryDays;
+
+    public AuditLogService(AuditLogRepository auditLogRepository,
+                           @Value("${app.audit.max-query-days:92}") long maxQueryDays) {
+        this.auditLogRepository = auditLogRepository;
+        this.maxQueryDays = maxQueryDays;
+    }
+
+    // Newest first; the only sort offered, since any other would have to read the whole range
+    @Transactional(readOnly = true)
+    public Page<AuditLog> findAuditLogs(LocalDateTime from, LocalDateTime to, String username, String action, Pageable pageable) {
+        validateRange(from, to);
+        logger.debug("Fetching audit logs from {} to {} for user '{}' and action '{}'", from, to, username, action);
+        Pageable newestFirst = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id")));
+        return auditLogRepository.findAll(AuditLogSpecifications.matching(from, to, username, action), newestFirst);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AuditLogBucket> countAuditLogs(LocalDateTime from, LocalDateTime to, AuditTimeBucket bucket, String username) {
+        validateRange(from, to);
+        logger.debug("Counting audit logs per {} from {} to {} for user '{}'", bucket, from, to, username);
+        String user = username == null || username.trim().isEmpty() ? null : username.trim();
+        return auditLogRepository.countByBucket(bucket.getPattern(), from, to, user);
+    }
+
+    private void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A time range with 'from' before 'to' is required.");
+        }
+        if (Duration.between(from, to).toDays() > maxQueryDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Audit queries may span at most " + maxQueryDays + " days.");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.joe.springsecurity.audit.service;
+
+import com.joe.springsecurity.audit.model.AuditLog;
+import com.joe.springsecurity.audit.repo.AuditLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers audit entries and persists them on the audit executor in batches of app.audit.writer.batch-size,
+ * using one saveAll (one JDBC batch) per batch. Callers never wait on the database. When the queue
+ * (app.audit.writer.queue-capacity) is full, new entries are dropped and counted rather than slowing
+ * down business transactions.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private final BlockingQueue<AuditLog> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AuditLogRepository auditLogRepository;
+    private final TaskExecutor auditExecutor;
+    private final int batchSize;
+
+    public AuditLogWriter(AuditLogRepository auditLogRepository,
+                          @Qualifier("auditExecutor") TaskExecutor auditExecutor,
+                          @Value("${app.audit.writer.queue-capacity:10000}") int queueCapacity,
+                          @Value("${app.audit.writer.batch-size:50}") int batchSize) {
+        this.auditLogRepository = auditLogRepository;
+        this.auditExecutor = auditExecutor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void write(AuditLog auditLog) {
+        if (!queue.offer(auditLog)) {
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                logger.warn("Audit log queue is full; {} entries dropped so far", dropped.get());
+            }
+            return;
+        }
+        scheduleDrain();
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queued", queue.size());
+        metrics.put("written", written.get());
+        metrics.put("batches", batches.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("failed", failed.get());
+        return metrics;
+    }
+
+    // At most one drain task at a time; it keeps going while entries arrive
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                auditExecutor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                logger.error("Could not schedule audit log writer: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<AuditLog> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                try {
+                    auditLogRepository.saveAll(batch);
+                    written.addAndGet(batch.size());
+                    batches.incrementAndGet();
+                } catch (Exception e) {
+                    failed.addAndGet(batch.size());
+                    logger.error("Failed to save {} audit logs: {}", batch.size(), e.getMessage());
+                }
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // An entry may have arrived between the last drainTo and the flag reset
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+}
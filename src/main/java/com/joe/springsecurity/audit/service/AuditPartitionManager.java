@@ -0,0 +1,137 @@
+package com.joe.springsecurity.audit.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the monthly RANGE partitions of cms_audit_logs (V10). Once a day, and at startup, it splits
+ * partitions from the last existing bound through the next app.audit.partitions-ahead months out of the
+ * empty p_future partition, and drops partitions older than app.audit.retention-months. Dropping a partition
+ * is a metadata operation, so retention never runs a large DELETE. Set app.audit.retention-months=0 to keep
+ * everything. If p_future holds rows (e.g. written while the job was not running), splitting it would copy
+ * them under a table lock, so the split is skipped and logged until they are moved.
+ *
+ * If several instances run the job at once, the losers fail on duplicate or missing partition names
+ * and simply log it; the next run converges.
+ */
+@Component
+public class AuditPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditPartitionManager.class);
+
+    private static final String TABLE = "cms_audit_logs";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int partitionsAhead;
+    private final int retentionMonths;
+
+    public AuditPartitionManager(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.audit.partitions-ahead:3}") int partitionsAhead,
+                                 @Value("${app.audit.retention-months:12}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionsAhead = Math.max(1, partitionsAhead);
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.audit.partition-cron:0 15 2 * * *}")
+    public synchronized void maintain() {
+        try {
+            Map<String, LocalDate> partitions = partitions();
+            if (partitions.isEmpty()) {
+                logger.warn("{} is not partitioned; skipping audit partition maintenance", TABLE);
+                return;
+            }
+            LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+            addPartitions(partitions, currentMonth.plusMonths(partitionsAhead + 1L));
+            if (retentionMonths > 0) {
+                dropPartitions(partitions, currentMonth.minusMonths(retentionMonths));
+            }
+        } catch (DataAccessException e) {
+            logger.error("Audit partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Partition name to exclusive upper bound, in partition order. p_future (MAXVALUE) maps to null.
+     */
+    public Map<String, LocalDate> partitions() {
+        Map<String, LocalDate> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                (RowCallbackHandler) rs -> {
+                    partitions.put(rs.getString(1), parseBound(rs.getString(2)));
+                },
+                TABLE);
+        return partitions;
+    }
+
+    private void addPartitions(Map<String, LocalDate> partitions, LocalDate coverUntil) {
+        LocalDate lastBound = partitions.values().stream()
+                .filter(bound -> bound != null)
+                .max(LocalDate::compareTo)
+                .orElse(LocalDate.now().withDayOfMonth(1));
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate month = lastBound; month.isBefore(coverUntil); month = month.plusMonths(1)) {
+            definitions.add("PARTITION " + PARTITION_NAME.format(month)
+                    + " VALUES LESS THAN ('" + month.plusMonths(1) + "')");
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        if (!jdbcTemplate.queryForList("SELECT 1 FROM " + TABLE + " PARTITION (" + FUTURE_PARTITION + ") LIMIT 1",
+                Integer.class).isEmpty()) {
+            logger.warn("{} partition {} is not empty; not adding partitions from {}, as reorganizing it would copy "
+                    + "its rows", TABLE, FUTURE_PARTITION, lastBound);
+            return;
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION
+                + " INTO (" + String.join(", ", definitions) + ")");
+        logger.info("Added {} audit log partitions up to {}", definitions.size() - 1, coverUntil);
+    }
+
+    private void dropPartitions(Map<String, LocalDate> partitions, LocalDate cutoff) {
+        List<String> expired = partitions.entrySet().stream()
+                .filter(partition -> partition.getValue() != null && !partition.getValue().isAfter(cutoff))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        if (expired.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", expired));
+        logger.info("Dropped audit log partitions {} (retention {} months)", expired, retentionMonths);
+    }
+
+    // RANGE COLUMNS bounds are reported as quoted literals, e.g. '2026-11-01' or '2026-11-01 00:00:00'
+    private static LocalDate parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        return LocalDate.parse(description.replace("'", "").trim().substring(0, 10));
+    }
+}
@@ -0,0 +1,195 @@
+package com.joe.springsecurity.audit.service;
+
+import com.joe.springsecurity.audit.model.ActionType;
+import com.joe.springsecurity.audit.model.AuditLog;
+import com.joe.springsecurity.company.model.Company;
+import com.joe.springsecurity.inventory.model.InventoryItem;
+import com.joe.springsecurity.inventory.model.ItemCategory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Entity-level audit capture. Hibernate hands post-commit listeners the entity's id and its loaded and
+ * flushed state, so the changed fields, the row id and the tenant are recorded without any extra SELECT,
+ * and rolled-back changes are never audited. Entries go to AuditLogWriter as gzip-compressed JSON.
+ *
+ * Only the entities in AUDITED are captured. Collections, the version column and EXCLUDED_PROPERTIES are
+ * skipped, and associations are recorded as ids. Bulk JPQL updates such as stock adjustments bypass
+ * Hibernate events; those are recorded in the stock movement ledger instead.
+ * Toggle with app.audit.entity-capture.enabled.
+ */
+@Component
+public class EntityAuditListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityAuditListener.class);
+
+    private static final Set<Class<?>> AUDITED = Set.of(InventoryItem.class, ItemCategory.class, Company.class);
+    private static final Set<String> EXCLUDED_PROPERTIES = Set.of("version", "password");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AuditLogWriter auditLogWriter;
+    private final boolean enabled;
+
+    public EntityAuditListener(EntityManagerFactory entityManagerFactory, AuditLogWriter auditLogWriter,
+                               @Value("${app.audit.entity-capture.enabled:true}") boolean enabled) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.auditLogWriter = auditLogWriter;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!enabled) {
+            logger.info("Entity audit capture is disabled");
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return AUDITED.contains(persister.getMappedClass());
+    }
+
+    // Still abstract in Hibernate 5.6; only the correctly spelled method above is consulted
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!AUDITED.contains(event.getPersister().getMappedClass())) {
+            return;
+        }
+        capture(ActionType.ENTITY_CREATED, event.getEntity(), event.getId(), event.getPersister(),
+                null, event.getState(), null, event.getSession());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!AUDITED.contains(event.getPersister().getMappedClass())) {
+            return;
+        }
+        capture(ActionType.ENTITY_UPDATED, event.getEntity(), event.getId(), event.getPersister(),
+                event.getOldState(), event.getState(), event.getDirtyProperties(), event.getSession());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!AUDITED.contains(event.getPersister().getMappedClass())) {
+            return;
+        }
+        capture(ActionType.ENTITY_DELETED, event.getEntity(), event.getId(), event.getPersister(),
+                event.getDeletedState(), null, null, event.getSession());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was committed, so nothing to audit
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void capture(ActionType action, Object entity, Serializable id, EntityPersister persister,
+                         Object[] oldState, Object[] newState, int[] dirtyProperties, EventSource session) {
+        try {
+            String[] names = persister.getPropertyNames();
+            Type[] types = persister.getPropertyTypes();
+            Map<String, Object[]> changes = new LinkedHashMap<>();
+            Long companyId = entity instanceof Company ? toLong(id) : null;
+
+            for (int i = 0; i < names.length; i++) {
+                if (types[i].isCollectionType() || EXCLUDED_PROPERTIES.contains(names[i])) {
+                    continue;
+                }
+                Object before = oldState != null ? render(types[i], oldState[i], session) : null;
+                Object after = newState != null ? render(types[i], newState[i], session) : null;
+                if ("company".equals(names[i])) {
+                    companyId = toLong(after != null ? after : before);
+                }
+                int index = i;
+                boolean changed = oldState == null || newState == null
+                        || (dirtyProperties != null ? Arrays.stream(dirtyProperties).anyMatch(p -> p == index)
+                        : !types[i].isEqual(oldState[i], newState[i]));
+                if (changed && (before != null || after != null)) {
+                    changes.put(names[i], new Object[]{before, after});
+                }
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+            auditLogWriter.write(new AuditLog(action.getAction(), currentUsername(),
+                    persister.getMappedClass().getSimpleName(), toLong(id), companyId, AuditChangeCodec.encode(changes)));
+        } catch (Exception e) {
+            // Auditing must never affect the (already committed) business transaction
+            logger.error("Failed to capture {} for {} ID: {}", action, persister.getEntityName(), id, e);
+        }
+    }
+
+    // Scalars as-is, associations as their id (read from the proxy or the object, never loaded)
+    private static Object render(Type type, Object value, EventSource session) {
+        if (value == null) {
+            return null;
+        }
+        if (type.isEntityType()) {
+            if (value instanceof HibernateProxy) {
+                return ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier();
+            }
+            return session.getFactory().getMetamodel()
+                    .entityPersister(((EntityType) type).getAssociatedEntityName())
+                    .getIdentifier(value, session);
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof String) {
+            return value;
+        }
+        return value.toString();
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "system";
+    }
+}
@@ -0,0 +1,45 @@
+package com.joe.springsecurity.auth.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt cost for this hardware: the highest strength whose hash still finishes within the
+ * target time. Each extra strength point doubles the work, so we time one hash at a low cost and
+ * extrapolate instead of trying every level.
+ */
+final class BCryptStrengthCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+    private static final int PROBE_STRENGTH = 8;
+    private static final int PROBE_ROUNDS = 3;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        String salt = BCrypt.gensalt(PROBE_STRENGTH);
+        BCrypt.hashpw("calibration-warmup", salt);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-probe", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double probeMillis = Math.max(best / 1_000_000.0, 0.01);
+        int strength = PROBE_STRENGTH;
+        double projected = probeMillis;
+        while (strength < maxStrength && projected * 2 <= targetMillis) {
+            projected *= 2;
+            strength++;
+        }
+        strength = Math.max(minStrength, strength);
+        logger.info("BCrypt calibrated to strength {} (~{} ms per hash, target {} ms)",
+                strength, Math.round(probeMillis * (1L << (strength - PROBE_STRENGTH))), targetMillis);
+        return strength;
+    }
+}
@@ -1,7 +1,10 @@
 package com.joe.springsecurity.auth.config;
 
 import com.joe.springsecurity.auth.filter.JwtAuthenticationFilter;
+import com.joe.springsecurity.auth.filter.RateLimitFilter;
 import com.joe.springsecurity.auth.service.UserDetailsServiceImp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,6 +18,7 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
@@ -24,6 +28,8 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -32,13 +38,16 @@ public class SecurityConfig {
 
     private final UserDetailsServiceImp userDetailsServiceImp;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final CustomLogoutHandler logoutHandler;
 
     public SecurityConfig(UserDetailsServiceImp userDetailsServiceImp,
                           JwtAuthenticationFilter jwtAuthenticationFilter,
+                          RateLimitFilter rateLimitFilter,
                           CustomLogoutHandler logoutHandler) {
         this.userDetailsServiceImp = userDetailsServiceImp;
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.logoutHandler = logoutHandler;
     }
 
@@ -49,6 +58,8 @@ public class SecurityConfig {
                 .authorizeRequests()
                 .antMatchers("/api/v2/auth/register", "/api/v2/auth/login", "/api/v2/auth/refresh_token", "/api/v2/reset-password", "/api/v2/request-password-reset") // Allow authentication-related endpoints
                 .permitAll()
+                .antMatchers(HttpMethod.PATCH, "/api/v2/inventoryitem/*/stock").hasAnyRole("SUPER_ADMIN", "ADMIN", "MANAGER", "CASHIER") // Stock adjustments, including point-of-sale deductions
+                .antMatchers(HttpMethod.POST, "/api/v2/inventoryitem/*/movements").hasAnyRole("SUPER_ADMIN", "ADMIN", "MANAGER", "CASHIER") // Coalesced stock movements
                 .antMatchers("/api/v2/inventoryitem/**").hasAnyRole("SUPER_ADMIN", "ADMIN", "USER") // Allow Super_Admin, Admin and User to access inventory (read-only for User)
                 .antMatchers(HttpMethod.POST, "/api/v2/inventoryitem/**").hasAnyRole("SUPER_ADMIN", "ADMIN") // Super_Admin, Admin only for creating inventory
                 .antMatchers(HttpMethod.PUT, "/api/v2/inventoryitem/**").hasAnyRole("SUPER_ADMIN", "ADMIN") // Super_Admin, Admin only for updating inventory
@@ -59,6 +70,7 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))  // Stateless authentication (JWT)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class) // Add JWT filter before authentication
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class) // Throttle before any token or password work
                 .exceptionHandling()
                 .accessDeniedHandler((request, response, accessDeniedException) -> response.setStatus(403)) // Handle access denial
                 .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)) // Handle unauthorized access
@@ -71,21 +83,49 @@ public class SecurityConfig {
                 .build();
     }
 
+    // The rate limit filter runs inside the security chain only, after CORS headers are added
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:4200"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Retry-After"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();  // Use BCrypt for password encoding
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(
+            @Value("${application.security.password.bcrypt-strength:0}") int bcryptStrength,
+            @Value("${application.security.password.bcrypt-target-millis:100}") long bcryptTargetMillis,
+            @Value("${application.security.password.hashing-threads:0}") int hashingThreads,
+            @Value("${application.security.password.hashing-queue-capacity:64}") int hashingQueueCapacity,
+            @Value("${application.security.password.hashing-timeout-millis:5000}") long hashingTimeoutMillis) {
+        // A fixed strength wins; otherwise calibrate once at startup, never going below the BCrypt default of 10
+        int strength = bcryptStrength > 0
+                ? bcryptStrength
+                : BCryptStrengthCalibrator.calibrate(bcryptTargetMillis, 10, 14);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(strength));
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder("bcrypt", encoders);
+        // Hashes stored before the {bcrypt} prefix was introduced; they are rehashed on the next successful login
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        int threads = hashingThreads > 0
+                ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(delegatingEncoder, threads, hashingQueueCapacity, hashingTimeoutMillis);
     }
 
     @Bean
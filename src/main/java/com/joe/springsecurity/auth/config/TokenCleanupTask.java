@@ -4,6 +4,7 @@ package com.joe.springsecurity.auth.config;
 import com.joe.springsecurity.auth.repo.TokenRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -23,6 +24,7 @@ public class TokenCleanupTask {
     }
 
     @Scheduled(fixedRate = 24 * 60 * 60 * 1000) // Daily cleanup
+    @Async("cleanupExecutor") // Keep the bulk delete off the shared scheduler thread
     @Transactional
     public void cleanupExpiredTokens() {
         logger.info("Starting token cleanup task...");
@@ -138,7 +138,7 @@ public class AuthenticationController {
     }
 
     /**
-     * Switches the user's active company and issues new tokens.
+     * Switches the user's active company and issues a new access token.
      * @param request Request containing the new company ID.
      * @param response HTTP response to set refresh token cookie.
      * @return ResponseEntity with AuthenticationResponse or error.
@@ -148,7 +148,10 @@ public class AuthenticationController {
         logger.info("Switch company request received for companyId: {}", request.getCompanyId());
         try {
             AuthenticationResponse authResponse = authService.switchCompany(request.getCompanyId());
-            setRefreshTokenCookie(response, authResponse.getRefreshToken());
+            // The session keeps its refresh token; only the access token changes
+            if (authResponse.getRefreshToken() != null) {
+                setRefreshTokenCookie(response, authResponse.getRefreshToken());
+            }
             logger.info("Company switched successfully to ID: {}", request.getCompanyId());
             return ResponseEntity.ok(authResponse);
         } catch (RuntimeException e) {
@@ -1,20 +1,41 @@
 package com.joe.springsecurity.auth.controller;
 
+import com.joe.springsecurity.auth.dto.BulkJob;
+import com.joe.springsecurity.auth.dto.BulkMembershipRequest;
+import com.joe.springsecurity.auth.service.BulkJobRegistry;
+import com.joe.springsecurity.auth.service.BulkMembershipService;
+import com.joe.springsecurity.auth.service.BulkUserProvisioningService;
 import com.joe.springsecurity.auth.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 @RestController
 @RequestMapping("/api/v2/users")
 @CrossOrigin(origins = "http://localhost:4200")
 public class UserController {
 
     private final UserService userService;
+    private final BulkMembershipService bulkMembershipService;
+    private final BulkJobRegistry bulkJobRegistry;
+    private final BulkUserProvisioningService bulkUserProvisioningService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, BulkMembershipService bulkMembershipService,
+                          BulkJobRegistry bulkJobRegistry, BulkUserProvisioningService bulkUserProvisioningService) {
         this.userService = userService;
+        this.bulkMembershipService = bulkMembershipService;
+        this.bulkJobRegistry = bulkJobRegistry;
+        this.bulkUserProvisioningService = bulkUserProvisioningService;
     }
 
     @PutMapping("/{userId}/companies/{companyId}")
@@ -28,4 +49,36 @@ public class UserController {
         String response = userService.removeCompanyFromUser(userId, companyId);
         return ResponseEntity.ok(response);
     }
+
+    // 200 with the finished job for small requests, 202 with a job to poll for large ones
+    @PostMapping("/companies/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<BulkJob> assignCompaniesInBulk(@RequestBody BulkMembershipRequest request) {
+        BulkJob job = bulkMembershipService.assign(request);
+        return ResponseEntity.status(job.isFinished() ? HttpStatus.OK : HttpStatus.ACCEPTED).body(job);
+    }
+
+    // CSV (with a header row) or NDJSON, read from the request stream; same 200/202 contract as above
+    @PostMapping(value = "/bulk", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<BulkJob> provisionUsers(HttpServletRequest request,
+                                                  @RequestParam(required = false) Long companyId,
+                                                  @RequestParam(defaultValue = "false") boolean issueTokens,
+                                                  @RequestParam(defaultValue = "true") boolean sendWelcomeEmail) throws IOException {
+        Charset charset = request.getCharacterEncoding() != null
+                ? Charset.forName(request.getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+        boolean ndjson = MediaType.APPLICATION_NDJSON.includes(MediaType.parseMediaType(request.getContentType()));
+        BulkJob job = bulkUserProvisioningService.provision(new InputStreamReader(request.getInputStream(), charset),
+                ndjson, companyId, issueTokens, sendWelcomeEmail);
+        return ResponseEntity.status(job.isFinished() ? HttpStatus.OK : HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/bulk-jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<BulkJob> getBulkJob(@PathVariable String jobId) {
+        return bulkJobRegistry.get(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
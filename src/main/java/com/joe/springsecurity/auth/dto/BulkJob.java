@@ -0,0 +1,147 @@
+package com.joe.springsecurity.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a bulk job, polled through GET /api/v2/users/bulk-jobs/{id}. Counters are updated by the
+ * worker while the client reads them; only the first MAX_ERRORS error messages are kept.
+ */
+public class BulkJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private static final int MAX_ERRORS = 100;
+
+    private final String id;
+    private final String type;
+    private final long total;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String message;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    // Per-item output for jobs that return one, such as issued tokens; null otherwise
+    private volatile List<?> results;
+
+    public BulkJob(String id, String type, long total) {
+        this.id = id;
+        this.type = type;
+        this.total = total;
+    }
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    public void advance(long count) {
+        processed.addAndGet(count);
+    }
+
+    public void record(long succeededCount, long skippedCount, long failedCount) {
+        succeeded.addAndGet(succeededCount);
+        skipped.addAndGet(skippedCount);
+        failed.addAndGet(failedCount);
+    }
+
+    public void addError(String error) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    public void complete(String message) {
+        this.message = message;
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public void setResults(List<?> results) {
+        this.results = results;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<?> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,54 @@
+package com.joe.springsecurity.auth.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Users to add to each company, by id and/or username
+public class BulkMembershipRequest {
+
+    private List<CompanyMembers> companies = new ArrayList<>();
+
+    public List<CompanyMembers> getCompanies() {
+        return companies;
+    }
+
+    public void setCompanies(List<CompanyMembers> companies) {
+        this.companies = companies;
+    }
+
+    public static class CompanyMembers {
+
+        private Long companyId;
+        private List<Long> userIds = new ArrayList<>();
+        private List<String> usernames = new ArrayList<>();
+
+        public Long getCompanyId() {
+            return companyId;
+        }
+
+        public void setCompanyId(Long companyId) {
+            this.companyId = companyId;
+        }
+
+        public List<Long> getUserIds() {
+            return userIds;
+        }
+
+        public void setUserIds(List<Long> userIds) {
+            this.userIds = userIds;
+        }
+
+        public List<String> getUsernames() {
+            return usernames;
+        }
+
+        public void setUsernames(List<String> usernames) {
+            this.usernames = usernames;
+        }
+
+        // Entries as sent, before duplicates and unknown users are removed
+        public int size() {
+            return (userIds != null ? userIds.size() : 0) + (usernames != null ? usernames.size() : 0);
+        }
+    }
+}
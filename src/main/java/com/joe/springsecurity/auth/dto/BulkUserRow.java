@@ -0,0 +1,89 @@
+package com.joe.springsecurity.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// One user of a bulk provisioning upload: a CSV row or an NDJSON line. Give either password or passwordHash.
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkUserRow {
+
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String password;
+    // An existing BCrypt hash, e.g. from a legacy system; stored as is
+    private String passwordHash;
+
+    // Line in the upload, for error messages
+    @JsonIgnore
+    private int line;
+
+    // Set when the line could not be parsed
+    @JsonIgnore
+    private String error;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,21 @@
+package com.joe.springsecurity.auth.dto;
+
+// One company a user belongs to (id and name), as listed by MembershipService and cached by MembershipCache
+public class CompanyMembership {
+
+    private final Long companyId;
+    private final String companyName;
+
+    public CompanyMembership(Long companyId, String companyName) {
+        this.companyId = companyId;
+        this.companyName = companyName;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+}
@@ -0,0 +1,39 @@
+package com.joe.springsecurity.auth.dto;
+
+// A user created by bulk provisioning, with the tokens issued for it when requested
+public class ProvisionedUser {
+
+    private final Long userId;
+    private final String username;
+    private final Long companyId;
+    private final String accessToken;
+    private final String refreshToken;
+
+    public ProvisionedUser(Long userId, String username, Long companyId, String accessToken, String refreshToken) {
+        this.userId = userId;
+        this.username = username;
+        this.companyId = companyId;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+}
@@ -0,0 +1,99 @@
+package com.joe.springsecurity.auth.filter;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads up to maxBytes of the request body so a filter can look at it, then replays those bytes (followed by
+ * whatever was not read) to the rest of the chain.
+ */
+class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] prefix;
+    private final boolean complete;
+    private ServletInputStream stream;
+
+    BufferedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        InputStream original = request.getInputStream();
+        byte[] read = original.readNBytes(maxBytes + 1);
+        this.complete = read.length <= maxBytes;
+        this.prefix = read;
+        InputStream replay = complete
+                ? new ByteArrayInputStream(read)
+                : new SequenceInputStream(new ByteArrayInputStream(read), original);
+        this.stream = new ReplayInputStream(replay);
+    }
+
+    // The whole body, or null if it was larger than maxBytes
+    byte[] getBody() {
+        return complete ? prefix : null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return stream;
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(stream, charset));
+    }
+
+    private static final class ReplayInputStream extends ServletInputStream {
+        private final InputStream delegate;
+        private boolean finished;
+
+        private ReplayInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            finished = b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            finished = n == -1;
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        // The body is replayed from memory (plus any unread remainder), which is always ready, so the listener
+        // is told at once that the data is available and then that it has all been read
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.joe.springsecurity.auth.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.springsecurity.auth.config.RateLimitProperties;
+import com.joe.springsecurity.auth.service.RateLimiter;
+import com.joe.springsecurity.errorhandling.ErrorResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the app.rate-limit.routes limits ahead of authentication, so throttled calls to login, password
+ * verification or password reset never reach BCrypt or the mail server. Every matching route is checked first
+ * and the request is rejected with 429 and Retry-After if any of them is empty, without taking a token from the
+ * others; only a request that passes takes one token from each.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Rule> rules = new ArrayList<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            if (route.getName() == null || route.getPattern() == null
+                    || route.getCapacity() <= 0 || route.getRefillPerMinute() <= 0) {
+                throw new IllegalStateException("Invalid rate limit route: " + route.getName()
+                        + " (name, pattern, capacity and refill-per-minute are required)");
+            }
+            rules.add(new Rule(route, NANOS_PER_MINUTE / route.getRefillPerMinute()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled() || rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String path = request.getServletPath();
+        List<Rule> matched = new ArrayList<>(2);
+        boolean needsBody = false;
+        for (Rule rule : rules) {
+            if (rule.matches(request.getMethod(), path, pathMatcher)) {
+                matched.add(rule);
+                needsBody |= rule.route.getKey() == RateLimitProperties.KeyType.USERNAME;
+            }
+        }
+        if (matched.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest effectiveRequest = request;
+        JsonNode body = null;
+        if (needsBody) {
+            BufferedBodyRequest buffered = new BufferedBodyRequest(request, properties.getMaxBodyBytes());
+            body = parseBody(buffered.getBody());
+            effectiveRequest = buffered;
+        }
+
+        String[] keys = new String[matched.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = resolveKey(matched.get(i), request, body);
+        }
+
+        // A request rejected by one route must not drain the others, e.g. a throttled username must not
+        // use up its IP's allowance; so check every bucket before taking from any
+        long waitNanos = 0;
+        Rule limitedBy = null;
+        for (int i = 0; i < keys.length; i++) {
+            Rule rule = matched.get(i);
+            if (keys[i] == null) {
+                continue;
+            }
+            long wait = rateLimiter.check(rule.route.getName(), keys[i], rule.route.getCapacity(),
+                    rule.emissionIntervalNanos);
+            if (wait > waitNanos) {
+                waitNanos = wait;
+                limitedBy = rule;
+            }
+        }
+        if (limitedBy != null) {
+            rateLimiter.recordRejection(limitedBy.route.getName());
+        } else {
+            // Another request can take the last token in between; then this one is rejected after all
+            for (int i = 0; i < keys.length && limitedBy == null; i++) {
+                Rule rule = matched.get(i);
+                if (keys[i] == null) {
+                    continue;
+                }
+                long wait = rateLimiter.tryAcquire(rule.route.getName(), keys[i], rule.route.getCapacity(),
+                        rule.emissionIntervalNanos);
+                if (wait > 0) {
+                    waitNanos = wait;
+                    limitedBy = rule;
+                }
+            }
+        }
+
+        if (limitedBy != null) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+            logger.warn("Rate limit '{}' hit for {} {} from {}", limitedBy.route.getName(), request.getMethod(),
+                    path, clientIp(request));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("TOO_MANY_REQUESTS",
+                    "Too many requests, retry in " + retryAfterSeconds + " seconds."));
+            return;
+        }
+        filterChain.doFilter(effectiveRequest, response);
+    }
+
+    private String resolveKey(Rule rule, HttpServletRequest request, JsonNode body) {
+        switch (rule.route.getKey()) {
+            case USERNAME:
+                JsonNode field = body != null ? body.get(rule.route.getBodyField()) : null;
+                // Case-folded so "Alice" and "alice" share a bucket
+                return field != null && field.isTextual() && !field.asText().isBlank()
+                        ? field.asText().trim().toLowerCase(Locale.ROOT)
+                        : null;
+            case IP:
+            default:
+                return clientIp(request);
+        }
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma >= 0 ? forwardedFor.substring(0, comma) : forwardedFor).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private JsonNode parseBody(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the controller; only the other keys apply here
+            return null;
+        }
+    }
+
+    private static final class Rule {
+        private final RateLimitProperties.Route route;
+        private final long emissionIntervalNanos;
+
+        private Rule(RateLimitProperties.Route route, long emissionIntervalNanos) {
+            this.route = route;
+            this.emissionIntervalNanos = emissionIntervalNanos;
+        }
+
+        private boolean matches(String method, String path, AntPathMatcher pathMatcher) {
+            return (route.getMethod() == null || route.getMethod().equalsIgnoreCase(method))
+                    && pathMatcher.match(route.getPattern(), path);
+        }
+    }
+}
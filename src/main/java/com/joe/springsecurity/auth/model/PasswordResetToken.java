@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 public class PasswordResetToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "password_reset_tokens_seq")
+    @TableGenerator(name = "password_reset_tokens_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_password_reset_tokens", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
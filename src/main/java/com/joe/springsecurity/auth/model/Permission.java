@@ -8,7 +8,9 @@ import java.io.Serializable;
 public class Permission implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "permissions_seq")
+    @TableGenerator(name = "permissions_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_permissions", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -11,7 +11,9 @@ import java.util.Date;
 public class Token {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tokens_seq")
+    @TableGenerator(name = "tokens_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_tokens", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -24,7 +26,19 @@ public class Token {
     @Column(name = "is_logged_out")
     private boolean loggedOut;
 
-    // Add this field
+    // One row per login; every refresh of that login rotates this row in place
+    @Column(name = "family_id", nullable = false, unique = true, length = 36)
+    private String familyId;
+
+    // jti of the refresh token that may be used next; older ones are replays
+    @Column(name = "refresh_token_id", length = 36)
+    private String refreshTokenId;
+
+    // Company the session is currently switched to
+    @Column(name = "company_id")
+    private Long companyId;
+
+    // Expiry of the current refresh token: the row is needed until the family can no longer refresh
     @Column(name = "expiration_date")
     private Date expirationDate;
 
@@ -65,6 +79,30 @@ public class Token {
         this.user = user;
     }
 
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public String getRefreshTokenId() {
+        return refreshTokenId;
+    }
+
+    public void setRefreshTokenId(String refreshTokenId) {
+        this.refreshTokenId = refreshTokenId;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public void setCompanyId(Long companyId) {
+        this.companyId = companyId;
+    }
+
     public String getRefreshToken() {
         return refreshToken;
     }
@@ -14,7 +14,9 @@ import java.util.*;
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_seq")
+    @TableGenerator(name = "users_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_users", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -38,6 +40,7 @@ public class User implements UserDetails {
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     private Set<Role> roles = new HashSet<>();
 
+    // Same rows as UserCompany; membership checks go through MembershipService instead of loading this set
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_companies",
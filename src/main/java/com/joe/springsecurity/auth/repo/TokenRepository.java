@@ -20,6 +20,29 @@ public interface TokenRepository extends JpaRepository<Token, Long> {
 
     Optional<Token > findByRefreshToken(String token);
 
+    @Query("select t.companyId from Token t where t.familyId = :familyId")
+    Optional<Long> findCompanyIdByFamilyId(@Param("familyId") String familyId);
+
+    // Company switch: replaces the session's access token, only if the caller presented the current one
+    @Modifying(flushAutomatically = true)
+    @Query("update Token t set t.accessToken = :newAccessToken, t.companyId = :companyId " +
+            "where t.familyId = :familyId and t.accessToken = :accessToken and t.loggedOut = false")
+    int switchCompany(@Param("familyId") String familyId, @Param("accessToken") String accessToken,
+                      @Param("newAccessToken") String newAccessToken, @Param("companyId") Long companyId);
+
+    // Refresh token rotation: succeeds only for the family's current refresh token, so a replayed one matches no row
+    @Modifying(flushAutomatically = true)
+    @Query("update Token t set t.refreshTokenId = :newTokenId, t.accessToken = :accessToken, " +
+            "t.refreshToken = :refreshToken, t.expirationDate = :expirationDate " +
+            "where t.familyId = :familyId and t.refreshTokenId = :tokenId and t.loggedOut = false")
+    int rotateRefreshToken(@Param("familyId") String familyId, @Param("tokenId") String tokenId,
+                           @Param("newTokenId") String newTokenId, @Param("accessToken") String accessToken,
+                           @Param("refreshToken") String refreshToken, @Param("expirationDate") Date expirationDate);
+
+    @Modifying
+    @Query("update Token t set t.loggedOut = true where t.familyId = :familyId and t.loggedOut = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
     // Add this method to delete expired or logged-out tokens
     @Modifying
     @Transactional
@@ -2,6 +2,7 @@ package com.joe.springsecurity.auth.service;
 
 
 import com.joe.springsecurity.auth.dto.AuthenticationResponse;
+import com.joe.springsecurity.auth.dto.CompanyMembership;
 import com.joe.springsecurity.auth.model.Role;
 import com.joe.springsecurity.auth.model.Token;
 import com.joe.springsecurity.auth.model.User;
@@ -10,6 +11,8 @@ import com.joe.springsecurity.auth.repo.UserRepository;
 import com.joe.springsecurity.company.model.Company;
 import com.joe.springsecurity.company.repo.CompanyRepository;
 import com.joe.springsecurity.utils.EmailService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,11 +52,19 @@ public class AuthenticationService {
     private final AuthenticationManager authenticationManager;
     private final CompanyRepository companyRepository;
     private final EmailService emailService;
+    private final PasswordVerificationCache passwordVerificationCache;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final MembershipService membershipService;
+    private final CompanySwitchDigest companySwitchDigest;
+    private final WelcomeEmailQueue welcomeEmailQueue;
 
     @Autowired
     public AuthenticationService(UserRepository repository, PasswordEncoder passwordEncoder, JwtService jwtService,
                                  TokenRepository tokenRepository, AuthenticationManager authenticationManager,
-                                 CompanyRepository companyRepository, EmailService emailService) {
+                                 CompanyRepository companyRepository, EmailService emailService,
+                                 PasswordVerificationCache passwordVerificationCache,
+                                 LoginAttemptLimiter loginAttemptLimiter, MembershipService membershipService,
+                                 CompanySwitchDigest companySwitchDigest, WelcomeEmailQueue welcomeEmailQueue) {
         this.repository = repository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
@@ -61,6 +72,11 @@ public class AuthenticationService {
         this.authenticationManager = authenticationManager;
         this.companyRepository = companyRepository;
         this.emailService = emailService;
+        this.passwordVerificationCache = passwordVerificationCache;
+        this.loginAttemptLimiter = loginAttemptLimiter;
+        this.membershipService = membershipService;
+        this.companySwitchDigest = companySwitchDigest;
+        this.welcomeEmailQueue = welcomeEmailQueue;
     }
 
     /**
@@ -95,17 +111,25 @@ public class AuthenticationService {
         User savedUser = repository.save(request);
         logger.info("User registered successfully: {}", savedUser.getUsername());
 
+        // The new user's only company; nothing to look up
+        CompanyMembership membership = new CompanyMembership(defaultCompany.getId(), defaultCompany.getName());
+
         // Generate tokens
-        String accessToken = jwtService.generateAccessToken(savedUser, defaultCompany);
-        String refreshToken = jwtService.generateRefreshToken(savedUser, defaultCompany);
+        String familyId = UUID.randomUUID().toString();
+        String refreshTokenId = UUID.randomUUID().toString();
+        String accessToken = jwtService.generateAccessToken(savedUser.getUsername(), membership.getCompanyId(),
+                membership.getCompanyName(), familyId);
+        String refreshToken = jwtService.generateRefreshToken(savedUser.getUsername(), membership.getCompanyId(),
+                membership.getCompanyName(), familyId, refreshTokenId);
 
         // Save tokens
-        saveUserToken(accessToken, refreshToken, savedUser);
+        saveUserToken(accessToken, refreshToken, familyId, refreshTokenId, savedUser, membership.getCompanyId());
 
         // Send welcome email
-        sendWelcomeEmail(savedUser);
+        welcomeEmailQueue.send(savedUser);
 
-        return buildAuthResponse(savedUser, accessToken, refreshToken, "User registered successfully", defaultCompany);
+        return buildAuthResponse(savedUser, accessToken, refreshToken, "User registered successfully",
+                List.of(membership), membership.getCompanyName());
     }
 
     /**
@@ -124,44 +148,66 @@ public class AuthenticationService {
                     return new RuntimeException("User not found");
                 });
 
-        Company defaultCompany = getDefaultCompany(user);
-        String accessToken = jwtService.generateAccessToken(user, defaultCompany);
-        String refreshToken = jwtService.generateRefreshToken(user, defaultCompany);
+        // One cached (id, name) list serves the default company, the tokens and the response
+        List<CompanyMembership> memberships = membershipService.getMemberships(user.getId());
+        CompanyMembership defaultCompany = getDefaultCompany(user, memberships);
+        String familyId = UUID.randomUUID().toString();
+        String refreshTokenId = UUID.randomUUID().toString();
+        String accessToken = jwtService.generateAccessToken(user.getUsername(), defaultCompany.getCompanyId(),
+                defaultCompany.getCompanyName(), familyId);
+        String refreshToken = jwtService.generateRefreshToken(user.getUsername(), defaultCompany.getCompanyId(),
+                defaultCompany.getCompanyName(), familyId, refreshTokenId);
 
         revokeAllTokensByUser(user);
-        saveUserToken(accessToken, refreshToken, user);
+        saveUserToken(accessToken, refreshToken, familyId, refreshTokenId, user, defaultCompany.getCompanyId());
 
         sendLoginNotification(user);
-        return buildAuthResponse(user, accessToken, refreshToken, "User login was successful", defaultCompany);
+        return buildAuthResponse(user, accessToken, refreshToken, "User login was successful", memberships,
+                defaultCompany.getCompanyName());
     }
 
     /**
-     * Switches the user's active company and generates new tokens.
+     * Switches the session's active company. Membership is checked against the cached memberships and only a new
+     * access token is issued: the session's token family, and so its refresh token, stays the same.
      * @param companyId The ID of the company to switch to.
-     * @return AuthenticationResponse with new tokens and updated company details.
+     * @return AuthenticationResponse with the new access token and updated company details (no refresh token).
      */
     public AuthenticationResponse switchCompany(Long companyId) {
         logger.info("Switching company to ID: {}", companyId);
-        User user = getCurrentUser();
+        // JwtAuthenticationFilter already loaded the user and kept the access token as credentials
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User)
+                || !(authentication.getCredentials() instanceof String)) {
+            logger.error("No authenticated user found");
+            throw new RuntimeException("User is not authenticated");
+        }
+        User user = (User) authentication.getPrincipal();
+        String currentAccessToken = (String) authentication.getCredentials();
 
-        Company newCompany = companyRepository.findById(companyId)
+        List<CompanyMembership> memberships = membershipService.getMemberships(user.getId());
+        CompanyMembership target = memberships.stream()
+                .filter(membership -> membership.getCompanyId().equals(companyId))
+                .findFirst()
                 .orElseThrow(() -> {
-                    logger.error("Company not found with ID: {}", companyId);
-                    return new RuntimeException("Company not found with ID: " + companyId);
+                    logger.error("User {} not associated with company ID: {}", user.getUsername(), companyId);
+                    return new RuntimeException("User is not associated with company ID: " + companyId);
                 });
 
-        if (!user.getCompanies().contains(newCompany)) {
-            logger.error("User {} not associated with company: {}", user.getUsername(), newCompany.getName());
-            throw new RuntimeException("User is not associated with company: " + newCompany.getName());
+        String familyId = jwtService.extractFamilyId(currentAccessToken);
+        if (familyId == null) {
+            logger.warn("Access token of user {} has no token family", user.getUsername());
+            throw new RuntimeException("Session has expired, please log in again");
+        }
+        String accessToken = jwtService.generateAccessToken(user.getUsername(), target.getCompanyId(),
+                target.getCompanyName(), familyId);
+        if (tokenRepository.switchCompany(familyId, currentAccessToken, accessToken, companyId) == 0) {
+            logger.warn("Company switch rejected for user {}: session {} is no longer current", user.getUsername(), familyId);
+            throw new RuntimeException("Session has expired, please log in again");
         }
 
-        revokeAllTokensByUser(user);
-        String accessToken = jwtService.generateAccessToken(user, newCompany);
-        String refreshToken = jwtService.generateRefreshToken(user, newCompany);
-        saveUserToken(accessToken, refreshToken, user);
-
-        sendCompanySwitchNotification(user, newCompany);
-        return buildAuthResponse(user, accessToken, refreshToken, "Company switched to " + newCompany.getName(), newCompany);
+        companySwitchDigest.record(user, target.getCompanyName());
+        return buildAuthResponse(user, accessToken, null, "Company switched to " + target.getCompanyName(),
+                memberships, target.getCompanyName());
     }
 
     /**
@@ -197,42 +243,43 @@ public class AuthenticationService {
     }
 
     /**
-     * Retrieves the default company for a user (first in the list).
+     * Retrieves the default company for a user (the membership with the lowest company id).
      * @param user The user to get the default company for.
-     * @return The default Company entity.
+     * @param memberships The user's companies, ordered by id.
+     * @return The default company's id and name.
      */
-    private Company getDefaultCompany(User user) {
-        if (user.getCompanies().isEmpty()) {
+    private CompanyMembership getDefaultCompany(User user, List<CompanyMembership> memberships) {
+        if (memberships.isEmpty()) {
             logger.error("User {} has no associated companies", user.getUsername());
             throw new RuntimeException("User does not belong to any company");
         }
-        return user.getCompanies().stream()
-                .findFirst()
-                .orElseThrow(() -> {
-                    logger.error("No companies assigned to user: {}", user.getUsername());
-                    return new RuntimeException("No companies assigned");
-                });
+        return memberships.get(0);
     }
 
     /**
-     * Builds an AuthenticationResponse with user and company details.
+     * Builds an AuthenticationResponse from the user's memberships (company id and name), in one pass.
      * @param user The authenticated user.
      * @param accessToken The new access token.
-     * @param refreshToken The new refresh token.
+     * @param refreshToken The new refresh token, or null when it is unchanged.
      * @param message The response message.
-     * @param company The active company.
+     * @param memberships The user's companies.
+     * @param companyName The active company's name.
      * @return AuthenticationResponse object.
      */
-    private AuthenticationResponse buildAuthResponse(User user, String accessToken, String refreshToken,
-                                                     String message, Company company) {
-        List<String> companyNames = user.getCompanies().stream().map(Company::getName).collect(Collectors.toList());
-        List<Long> companyIds = user.getCompanies().stream().map(Company::getId).collect(Collectors.toList());
+    private AuthenticationResponse buildAuthResponse(User user, String accessToken, String refreshToken, String message,
+                                                     List<CompanyMembership> memberships, String companyName) {
+        List<String> companyNames = new ArrayList<>(memberships.size());
+        List<Long> companyIds = new ArrayList<>(memberships.size());
+        for (CompanyMembership membership : memberships) {
+            companyNames.add(membership.getCompanyName());
+            companyIds.add(membership.getCompanyId());
+        }
         AuthenticationResponse response = new AuthenticationResponse(
                 accessToken, refreshToken, message, user.getEmail(), user.getFirstName(), user.getLastName(),
                 user.getRoles().stream().map(Role::name).collect(Collectors.toList()),
-                companyNames, company.getName(), companyIds
+                companyNames, companyName, companyIds
         );
-        response.setUsername(user.getUsername()); // Add this line
+        response.setUsername(user.getUsername());
         return response;
     }
 
@@ -250,39 +297,29 @@ public class AuthenticationService {
     }
 
     /**
-     * Saves new access and refresh tokens for a user.
+     * Saves new access and refresh tokens for a user as the first generation of a token family.
      * @param accessToken The access token.
      * @param refreshToken The refresh token.
+     * @param familyId The token family, carried in the refresh token.
+     * @param refreshTokenId The refresh token's jti.
      * @param user The user to associate the tokens with.
+     * @param companyId The session's active company.
      */
-    private void saveUserToken(String accessToken, String refreshToken, User user) {
+    private void saveUserToken(String accessToken, String refreshToken, String familyId, String refreshTokenId,
+                               User user, Long companyId) {
         Token token = new Token();
         token.setAccessToken(accessToken);
         token.setRefreshToken(refreshToken);
+        token.setFamilyId(familyId);
+        token.setRefreshTokenId(refreshTokenId);
+        token.setCompanyId(companyId);
         token.setLoggedOut(false);
         token.setUser(user);
-        token.setExpirationDate(jwtService.extractExpiration(accessToken));
+        token.setExpirationDate(jwtService.extractExpiration(refreshToken));
         tokenRepository.save(token);
         logger.debug("Saved new token for user: {}", user.getUsername());
     }
 
-    /**
-     * Sends a welcome email to the newly registered user.
-     * @param user The user to notify.
-     */
-    private void sendWelcomeEmail(User user) {
-        String subject = "Welcome to CMS";
-        String text = String.format("Dear %s,\n\nWelcome to CMS! Your account has been successfully created.\n\n" +
-                        "Username: %s\nEmail: %s\n\nPlease log in to get started.\n\nBest Regards.",
-                user.getFirstName(), user.getUsername(), user.getEmail());
-        try {
-            emailService.sendEmail(user.getEmail(), subject, text);
-            logger.info("Welcome email sent to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            logger.error("Failed to send welcome email to {}: {}", user.getEmail(), e.getMessage(), e);
-        }
-    }
-
     /**
      * Sends a login notification email to the user.
      * @param user The user to notify.
@@ -301,27 +338,10 @@ public class AuthenticationService {
         }
     }
 
-    /**
-     * Sends a company switch notification email to the user.
-     * @param user The user to notify.
-     * @param company The newly selected company.
-     */
-    private void sendCompanySwitchNotification(User user, Company company) {
-        String subject = "Company Switch Notification";
-        String text = String.format("Dear %s,\n\nYou have successfully switched to company: %s.\n\n" +
-                        "If this was not you, please contact support immediately.\n\nBest Regards.",
-                user.getFirstName(), company.getName());
-        try {
-            emailService.sendEmail(user.getEmail(), subject, text);
-            logger.info("Company switch notification sent to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            logger.error("Failed to send company switch notification to {}: {}", user.getEmail(), e.getMessage(), e);
-        }
-    }
-
-
     /**
      * Refreshes the access token using the refresh token from the request cookie.
+     * The token family's row is rotated in place by one conditional UPDATE; a refresh token that was already
+     * rotated away is treated as stolen and revokes the whole family.
      * @param request HTTP request containing the refresh token cookie.
      * @param response HTTP response to update the refresh token if needed.
      * @return ResponseEntity with new AuthenticationResponse or error status.
@@ -337,10 +357,22 @@ public class AuthenticationService {
                     .body(new AuthenticationResponse(null, null, "Refresh token is missing"));
         }
 
-        // Extract username from token
-        String username = jwtService.extractUsername(refreshToken);
-        if (username == null) {
-            logger.warn("Invalid refresh token: no username found");
+        // Signature and expiry are checked here, once
+        Claims claims;
+        try {
+            claims = jwtService.extractAllClaims(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.warn("Invalid or expired refresh token: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new AuthenticationResponse(null, null, "Invalid or expired refresh token"));
+        }
+
+        // Tokens issued before token families carry no fid; those users have to log in again
+        String username = claims.getSubject();
+        String familyId = claims.get(JwtService.FAMILY_ID_CLAIM, String.class);
+        String tokenId = claims.getId();
+        if (username == null || familyId == null || tokenId == null) {
+            logger.warn("Invalid refresh token: missing subject or token family");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new AuthenticationResponse(null, null, "Invalid refresh token"));
         }
@@ -352,31 +384,45 @@ public class AuthenticationService {
                     return new RuntimeException("User not found");
                 });
 
-        // Validate refresh token using JwtService's isValidRefreshToken
-        if (!jwtService.isValidRefreshToken(refreshToken, user)) {
-            logger.warn("Invalid or expired refresh token for user: {}", username);
+        // The session's company, which a company switch may have changed since this token was issued;
+        // it must still be one of the user's companies
+        Long companyId = tokenRepository.findCompanyIdByFamilyId(familyId)
+                .orElse(claims.get("companyId", Long.class));
+        List<CompanyMembership> memberships = membershipService.getMemberships(user.getId());
+        CompanyMembership currentCompany = memberships.stream()
+                .filter(membership -> membership.getCompanyId().equals(companyId))
+                .findFirst()
+                .orElse(null);
+        if (currentCompany == null) {
+            logger.warn("User {} is no longer associated with company ID: {}", username, companyId);
+            tokenRepository.revokeFamily(familyId);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new AuthenticationResponse(null, null, "Invalid or expired refresh token"));
         }
 
-        // Get current company from token (since your tokens include companyId)
-        Long companyId = jwtService.extractCompanyId(refreshToken);
-        Company currentCompany = companyRepository.findById(companyId)
-                .orElseThrow(() -> {
-                    logger.error("Company not found for ID: {}", companyId);
-                    return new RuntimeException("Company not found");
-                });
-
         // Generate new tokens
-        String newAccessToken = jwtService.generateAccessToken(user, currentCompany);
-        String newRefreshToken = jwtService.generateRefreshToken(user, currentCompany);
-
-        // Revoke old token and save new ones
-        revokeAllTokensByUser(user);
-        saveUserToken(newAccessToken, newRefreshToken, user);
+        String newRefreshTokenId = UUID.randomUUID().toString();
+        String newAccessToken = jwtService.generateAccessToken(username, currentCompany.getCompanyId(),
+                currentCompany.getCompanyName(), familyId);
+        String newRefreshToken = jwtService.generateRefreshToken(username, currentCompany.getCompanyId(),
+                currentCompany.getCompanyName(), familyId, newRefreshTokenId);
+
+        // Only the family's current refresh token matches; logged-out families and replays update nothing
+        int rotated = tokenRepository.rotateRefreshToken(familyId, tokenId, newRefreshTokenId, newAccessToken,
+                newRefreshToken, jwtService.extractExpiration(newRefreshToken));
+        if (rotated == 0) {
+            if (tokenRepository.revokeFamily(familyId) > 0) {
+                logger.warn("Refresh token reuse detected for user: {}, revoked token family {}", username, familyId);
+            } else {
+                logger.warn("Refresh token family {} of user {} is revoked or unknown", familyId, username);
+            }
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new AuthenticationResponse(null, null, "Invalid or expired refresh token"));
+        }
 
         logger.info("Tokens refreshed successfully for user: {}", username);
-        return ResponseEntity.ok(buildAuthResponse(user, newAccessToken, newRefreshToken, "Tokens refreshed successfully", currentCompany));
+        return ResponseEntity.ok(buildAuthResponse(user, newAccessToken, newRefreshToken, "Tokens refreshed successfully",
+                memberships, currentCompany.getCompanyName()));
     }
 
 
@@ -405,9 +451,21 @@ public class AuthenticationService {
      */
     public void verifyPassword(String username, String password) throws AuthenticationException {
         logger.debug("Verifying password for username: {}", username);
-        authenticationManager.authenticate(
+        // Session unlock repeats the same check often; a recent match against the same stored hash skips BCrypt
+        String storedHash = repository.findByUsername(username).map(User::getPassword).orElse(null);
+        if (passwordVerificationCache.isVerified(username, storedHash, password)) {
+            logger.debug("Password verification served from cache for username: {}", username);
+            return;
+        }
+
+        loginAttemptLimiter.acquire(username);
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(username, password)
         );
+        // The principal carries the hash actually stored, including one rewritten by rehash-on-login
+        if (authentication.getPrincipal() instanceof User) {
+            passwordVerificationCache.remember(username, ((User) authentication.getPrincipal()).getPassword(), password);
+        }
     }
 
 }
@@ -0,0 +1,69 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.dto.BulkJob;
+import com.joe.springsecurity.errorhandling.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * In-memory registry of bulk jobs run on the bulk executor. Jobs are visible on the node that runs them
+ * and are dropped app.bulk.job-retention-ms after they finish; the data they write is the record.
+ */
+@Component
+public class BulkJobRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkJobRegistry.class);
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    private final TaskExecutor bulkExecutor;
+    private final long retentionMillis;
+
+    public BulkJobRegistry(@Qualifier("bulkExecutor") TaskExecutor bulkExecutor,
+                           @Value("${app.bulk.job-retention-ms:3600000}") long retentionMillis) {
+        this.bulkExecutor = bulkExecutor;
+        this.retentionMillis = retentionMillis;
+    }
+
+    public BulkJob create(String type, long total) {
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), type, total);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    public Optional<BulkJob> get(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Runs the job on the bulk executor.
+     * @throws TooManyRequestsException if the executor's queue is full.
+     */
+    public void submit(BulkJob job, Runnable work) {
+        try {
+            bulkExecutor.execute(work);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            logger.warn("Rejected {} job {}: bulk executor is busy", job.getType(), job.getId());
+            throw new TooManyRequestsException("Too many bulk jobs are running, retry later.", 60);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.bulk.purge-interval-ms:600000}")
+    public void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(retentionMillis * 1_000_000);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
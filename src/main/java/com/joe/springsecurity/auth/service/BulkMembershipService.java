@@ -0,0 +1,244 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
+import com.joe.springsecurity.auth.dto.BulkJob;
+import com.joe.springsecurity.auth.dto.BulkMembershipRequest;
+import com.joe.springsecurity.auth.repo.UserRepository;
+import com.joe.springsecurity.company.repo.CompanyRepository;
+import com.joe.springsecurity.company.repo.UserCompanyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Adds many users to companies in one transaction. Users are resolved in IN-list chunks, join rows are written
+ * with JDBC batches of INSERT IGNORE. Each batch first looks up which of its users are already members on the
+ * (company_id, user_id) index, so existing memberships are skipped and counted without touching the rest of
+ * the company. Unknown companies and users are reported on the job and skipped; anything else rolls the
+ * whole request back.
+ */
+@Service
+public class BulkMembershipService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkMembershipService.class);
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    // Above this many affected users one cache-wide event replaces per-user events
+    private static final int PER_USER_EVICTION_LIMIT = 100;
+
+    private final UserRepository userRepository;
+    private final CompanyRepository companyRepository;
+    private final UserCompanyRepository userCompanyRepository;
+    private final MembershipCache membershipCache;
+    private final BulkJobRegistry bulkJobRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int syncThreshold;
+    private final int maxEntries;
+    private final int batchSize;
+
+    public BulkMembershipService(UserRepository userRepository, CompanyRepository companyRepository,
+                                 UserCompanyRepository userCompanyRepository, MembershipCache membershipCache,
+                                 BulkJobRegistry bulkJobRegistry, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.bulk.memberships.sync-threshold:500}") int syncThreshold,
+                                 @Value("${app.bulk.memberships.max-entries:100000}") int maxEntries,
+                                 @Value("${app.bulk.memberships.batch-size:1000}") int batchSize) {
+        this.userRepository = userRepository;
+        this.companyRepository = companyRepository;
+        this.userCompanyRepository = userCompanyRepository;
+        this.membershipCache = membershipCache;
+        this.bulkJobRegistry = bulkJobRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.syncThreshold = syncThreshold;
+        this.maxEntries = maxEntries;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts a bulk assignment. Small requests finish before this returns; larger ones run on the bulk
+     * executor and the returned job reports their progress.
+     */
+    @Audited(action = ActionType.BULK_ASSIGN_COMPANIES, details = "Started a bulk user-to-company assignment.")
+    public BulkJob assign(BulkMembershipRequest request) {
+        List<BulkMembershipRequest.CompanyMembers> entries = request.getCompanies() != null
+                ? request.getCompanies().stream().filter(Objects::nonNull).collect(Collectors.toList())
+                : List.of();
+        long total = entries.stream().mapToLong(BulkMembershipRequest.CompanyMembers::size).sum();
+        if (total == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No memberships to assign.");
+        }
+        if (total > maxEntries) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxEntries + " memberships can be assigned per request.");
+        }
+
+        BulkJob job = bulkJobRegistry.create("memberships", total);
+        if (total <= syncThreshold) {
+            run(job, entries);
+        } else {
+            bulkJobRegistry.submit(job, () -> run(job, entries));
+        }
+        return job;
+    }
+
+    private void run(BulkJob job, List<BulkMembershipRequest.CompanyMembers> entries) {
+        job.start();
+        long start = System.currentTimeMillis();
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(job, entries));
+            job.complete("Added " + job.getSucceeded() + " memberships, skipped " + job.getSkipped()
+                    + ", failed " + job.getFailed() + ".");
+            logger.info("Bulk membership job {} finished in {} ms: {}", job.getId(),
+                    System.currentTimeMillis() - start, job.getMessage());
+        } catch (Exception e) {
+            logger.error("Bulk membership job {} failed and was rolled back", job.getId(), e);
+            job.fail("Rolled back: " + e.getMessage());
+        }
+    }
+
+    private void apply(BulkJob job, List<BulkMembershipRequest.CompanyMembers> entries) {
+        Set<Long> requestedCompanies = entries.stream()
+                .map(BulkMembershipRequest.CompanyMembers::getCompanyId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> knownCompanies = requestedCompanies.isEmpty()
+                ? Set.of()
+                : new HashSet<>(companyRepository.findExistingIds(requestedCompanies));
+
+        Set<Long> affectedUsers = new HashSet<>();
+        for (BulkMembershipRequest.CompanyMembers entry : entries) {
+            Long companyId = entry.getCompanyId();
+            if (!knownCompanies.contains(companyId)) {
+                job.addError("Company not found: " + companyId);
+                job.record(0, 0, entry.size());
+                job.advance(entry.size());
+                continue;
+            }
+
+            long failedBefore = job.getFailed();
+            Set<Long> userIds = resolveUsers(entry, job);
+            long unknown = job.getFailed() - failedBefore;
+            long added = 0;
+            List<Long> batch = new ArrayList<>(batchSize);
+            for (Long userId : userIds) {
+                batch.add(userId);
+                if (batch.size() == batchSize) {
+                    added += insertBatch(companyId, batch, job);
+                }
+            }
+            added += insertBatch(companyId, batch, job);
+
+            // Skipped: already members, plus entries repeating a user within the request
+            job.record(added, entry.size() - unknown - added, 0);
+            // Unknown users and duplicates within the request were never inserted
+            job.advance(entry.size() - userIds.size());
+            affectedUsers.addAll(userIds);
+        }
+
+        // Published inside the transaction, so other readers drop stale lists only once the rows are visible
+        if (affectedUsers.size() > PER_USER_EVICTION_LIMIT) {
+            membershipCache.evictAll();
+        } else {
+            affectedUsers.forEach(membershipCache::evict);
+        }
+    }
+
+    // Inserts the batch's new memberships and returns how many were added
+    private long insertBatch(Long companyId, List<Long> batch, BulkJob job) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Set<Long> members = new HashSet<>(userCompanyRepository.findMemberIds(companyId, batch));
+        List<Long> newMembers = batch.stream().filter(userId -> !members.contains(userId)).collect(Collectors.toList());
+        long added = 0;
+        if (!newMembers.isEmpty()) {
+            // Still IGNORE: a membership added concurrently since the lookup is skipped rather than failing the job
+            int[][] counts = jdbcTemplate.batchUpdate("INSERT IGNORE INTO user_companies (user_id, company_id) VALUES (?, ?)",
+                    newMembers, newMembers.size(), (statement, userId) -> {
+                        statement.setLong(1, userId);
+                        statement.setLong(2, companyId);
+                    });
+            added = added(counts, newMembers.size());
+        }
+        job.advance(batch.size());
+        batch.clear();
+        return added;
+    }
+
+    // Rows inserted according to the driver; with rewriteBatchedStatements it reports SUCCESS_NO_INFO per row,
+    // and then the lookup before the insert is the count
+    private static long added(int[][] counts, int attempted) {
+        long added = 0;
+        for (int[] batchCounts : counts) {
+            for (int count : batchCounts) {
+                if (count < 0) {
+                    return attempted;
+                }
+                added += count;
+            }
+        }
+        return added;
+    }
+
+    // Existing user ids for the entry's ids and usernames, without duplicates; unknown ones are counted as failed
+    private Set<Long> resolveUsers(BulkMembershipRequest.CompanyMembers entry, BulkJob job) {
+        Set<Long> resolved = new LinkedHashSet<>();
+
+        List<Long> requestedIds = entry.getUserIds() != null
+                ? entry.getUserIds().stream().filter(Objects::nonNull).distinct().collect(Collectors.toList())
+                : List.of();
+        for (int i = 0; i < requestedIds.size(); i += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = requestedIds.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, requestedIds.size()));
+            Set<Long> existing = new HashSet<>(userRepository.findExistingIds(chunk));
+            for (Long userId : chunk) {
+                if (existing.contains(userId)) {
+                    resolved.add(userId);
+                } else {
+                    job.addError("User not found: " + userId + " (company " + entry.getCompanyId() + ")");
+                    job.record(0, 0, 1);
+                }
+            }
+        }
+
+        List<String> requestedNames = entry.getUsernames() != null
+                ? entry.getUsernames().stream().filter(Objects::nonNull).map(String::trim).distinct().collect(Collectors.toList())
+                : List.of();
+        for (int i = 0; i < requestedNames.size(); i += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = requestedNames.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, requestedNames.size()));
+            // Username comparison follows the column collation, which ignores case
+            Map<String, Long> idsByName = new HashMap<>();
+            for (Object[] row : userRepository.findIdsByUsernames(chunk)) {
+                idsByName.put(((String) row[0]).toLowerCase(Locale.ROOT), (Long) row[1]);
+            }
+            for (String username : chunk) {
+                Long userId = idsByName.get(username.toLowerCase(Locale.ROOT));
+                if (userId != null) {
+                    resolved.add(userId);
+                } else {
+                    job.addError("User not found: " + username + " (company " + entry.getCompanyId() + ")");
+                    job.record(0, 0, 1);
+                }
+            }
+        }
+        return resolved;
+    }
+}
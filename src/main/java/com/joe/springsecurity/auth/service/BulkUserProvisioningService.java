@@ -0,0 +1,380 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
+import com.joe.springsecurity.auth.config.BoundedPasswordEncoder;
+import com.joe.springsecurity.auth.dto.BulkJob;
+import com.joe.springsecurity.auth.dto.BulkUserRow;
+import com.joe.springsecurity.auth.dto.ProvisionedUser;
+import com.joe.springsecurity.auth.model.Role;
+import com.joe.springsecurity.auth.model.Token;
+import com.joe.springsecurity.auth.model.User;
+import com.joe.springsecurity.auth.repo.TokenRepository;
+import com.joe.springsecurity.auth.repo.UserRepository;
+import com.joe.springsecurity.company.model.Company;
+import com.joe.springsecurity.company.repo.CompanyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Creates users in bulk, e.g. when migrating from a legacy system. Instead of register()'s per-user work:
+ * <ul>
+ *     <li>usernames, emails and default company names are checked against the database in IN-list chunks,
+ *     and duplicates within the upload are caught in memory;</li>
+ *     <li>passwords are hashed in parallel on the bulk-hash executor, and rows that carry a BCrypt hash from
+ *     the old system are not hashed at all;</li>
+ *     <li>users, companies and tokens are saved in chunks of app.bulk.users.batch-size, each chunk in its own
+ *     transaction with Hibernate's JDBC batching; a chunk that fails is rolled back and reported, the rest are
+ *     kept;</li>
+ *     <li>welcome emails are queued on WelcomeEmailQueue and mailed in batches after the import.</li>
+ * </ul>
+ * Users join the given company, or like register() each get a new default company. Rows that fail validation
+ * or already exist are reported on the job and skipped.
+ */
+@Service
+public class BulkUserProvisioningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkUserProvisioningService.class);
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^(\\{bcrypt})?\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
+    private final UserRepository userRepository;
+    private final CompanyRepository companyRepository;
+    private final TokenRepository tokenRepository;
+    private final JwtService jwtService;
+    private final WelcomeEmailQueue welcomeEmailQueue;
+    private final BulkJobRegistry bulkJobRegistry;
+    private final BulkUserReader bulkUserReader;
+    private final PasswordEncoder hashingEncoder;
+    private final AsyncTaskExecutor hashExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int syncThreshold;
+    private final int batchSize;
+    private final int maxRows;
+
+    public BulkUserProvisioningService(UserRepository userRepository, CompanyRepository companyRepository,
+                                       TokenRepository tokenRepository, JwtService jwtService,
+                                       WelcomeEmailQueue welcomeEmailQueue, BulkJobRegistry bulkJobRegistry,
+                                       BulkUserReader bulkUserReader, PasswordEncoder passwordEncoder,
+                                       @Qualifier("bulkHashExecutor") AsyncTaskExecutor hashExecutor,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.bulk.users.sync-threshold:100}") int syncThreshold,
+                                       @Value("${app.bulk.users.batch-size:500}") int batchSize,
+                                       @Value("${app.bulk.users.max-rows:100000}") int maxRows) {
+        this.userRepository = userRepository;
+        this.companyRepository = companyRepository;
+        this.tokenRepository = tokenRepository;
+        this.jwtService = jwtService;
+        this.welcomeEmailQueue = welcomeEmailQueue;
+        this.bulkJobRegistry = bulkJobRegistry;
+        this.bulkUserReader = bulkUserReader;
+        // The bounded encoder's pool and queue are sized for logins; bulk hashing brings its own executor
+        this.hashingEncoder = passwordEncoder instanceof BoundedPasswordEncoder
+                ? ((BoundedPasswordEncoder) passwordEncoder).getDelegate()
+                : passwordEncoder;
+        this.hashExecutor = hashExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.syncThreshold = syncThreshold;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Starts provisioning the users of a CSV or NDJSON upload (see BulkUserReader). Up to app.bulk.users.sync-threshold rows finish before this returns;
+     * larger uploads run on the bulk executor and the returned job reports their progress.
+     * @param upload The upload's text.
+     * @param ndjson Whether the upload is NDJSON rather than CSV.
+     * @param companyId Company all users join, or null to create a default company per user.
+     * @param issueTokens Whether to log each user in and return the tokens on the job; synchronous uploads only,
+     *                    so that tokens are never held by a job waiting to be polled.
+     * @param sendWelcomeEmail Whether to queue welcome emails.
+     */
+    @Audited(action = ActionType.BULK_PROVISION_USERS, details = "Started a bulk user provisioning upload.")
+    public BulkJob provision(Reader upload, boolean ndjson, Long companyId, boolean issueTokens,
+                             boolean sendWelcomeEmail) {
+        List<BulkUserRow> rows = ndjson
+                ? bulkUserReader.readNdjson(upload, maxRows)
+                : bulkUserReader.readCsv(upload, maxRows);
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No users to provision.");
+        }
+        if (issueTokens && rows.size() > syncThreshold) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Tokens can only be issued for up to " + syncThreshold + " users per request.");
+        }
+        Company company = null;
+        if (companyId != null) {
+            company = companyRepository.findById(companyId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Company not found: " + companyId));
+        }
+
+        BulkJob job = bulkJobRegistry.create("users", rows.size());
+        Company sharedCompany = company;
+        if (rows.size() <= syncThreshold) {
+            run(job, rows, sharedCompany, issueTokens, sendWelcomeEmail);
+        } else {
+            bulkJobRegistry.submit(job, () -> run(job, rows, sharedCompany, issueTokens, sendWelcomeEmail));
+        }
+        return job;
+    }
+
+    private void run(BulkJob job, List<BulkUserRow> rows, Company company, boolean issueTokens,
+                     boolean sendWelcomeEmail) {
+        job.start();
+        long start = System.currentTimeMillis();
+        try {
+            List<BulkUserRow> accepted = validate(job, rows, company == null);
+            List<ProvisionedUser> results = issueTokens ? new ArrayList<>() : null;
+
+            for (int i = 0; i < accepted.size(); i += batchSize) {
+                List<BulkUserRow> chunk = accepted.subList(i, Math.min(i + batchSize, accepted.size()));
+                List<String> hashes = hashPasswords(chunk);
+                List<ProvisionedUser> chunkResults = issueTokens ? new ArrayList<>(chunk.size()) : null;
+                try {
+                    List<User> saved = transactionTemplate.execute(status ->
+                            insertChunk(chunk, hashes, company, chunkResults));
+                    job.record(saved.size(), 0, 0);
+                    if (chunkResults != null) {
+                        results.addAll(chunkResults);
+                    }
+                    if (sendWelcomeEmail) {
+                        saved.forEach(welcomeEmailQueue::enqueue);
+                    }
+                } catch (RuntimeException e) {
+                    // E.g. a username registered between the check and the insert
+                    logger.warn("Bulk user job {}: rows from line {} to {} rolled back: {}", job.getId(),
+                            chunk.get(0).getLine(), chunk.get(chunk.size() - 1).getLine(), e.getMessage());
+                    job.addError("Lines " + chunk.get(0).getLine() + "-" + chunk.get(chunk.size() - 1).getLine()
+                            + " rolled back: " + e.getMessage());
+                    job.record(0, 0, chunk.size());
+                }
+                job.advance(chunk.size());
+            }
+
+            job.setResults(results);
+            job.complete("Created " + job.getSucceeded() + " users, skipped " + job.getSkipped()
+                    + ", failed " + job.getFailed() + ".");
+            logger.info("Bulk user job {} finished in {} ms: {}", job.getId(),
+                    System.currentTimeMillis() - start, job.getMessage());
+        } catch (Exception e) {
+            logger.error("Bulk user job {} failed", job.getId(), e);
+            job.fail("Stopped after " + job.getSucceeded() + " users were created: " + e.getMessage());
+        }
+    }
+
+    // Rows that can be inserted; the others are recorded on the job as failed (invalid) or skipped (taken)
+    private List<BulkUserRow> validate(BulkJob job, List<BulkUserRow> rows, boolean defaultCompanies) {
+        List<BulkUserRow> valid = new ArrayList<>(rows.size());
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (BulkUserRow row : rows) {
+            String error = check(row);
+            if (error == null && !usernames.add(key(row.getUsername()))) {
+                error = "username '" + row.getUsername() + "' appears more than once";
+            }
+            if (error == null && !emails.add(key(row.getEmail()))) {
+                error = "email '" + row.getEmail() + "' appears more than once";
+            }
+            if (error != null) {
+                reject(job, row, error, false);
+            } else {
+                valid.add(row);
+            }
+        }
+
+        Set<String> takenUsernames = findTaken(usernames, userRepository::findExistingUsernames);
+        Set<String> takenEmails = findTaken(emails, userRepository::findExistingEmails);
+        Set<String> takenCompanyNames = defaultCompanies
+                ? findTaken(valid.stream().map(row -> key(defaultCompanyName(row.getUsername())))
+                        .collect(Collectors.toSet()), companyRepository::findExistingNames)
+                : Set.of();
+
+        List<BulkUserRow> accepted = new ArrayList<>(valid.size());
+        for (BulkUserRow row : valid) {
+            if (takenUsernames.contains(key(row.getUsername()))) {
+                reject(job, row, "username '" + row.getUsername() + "' already exists", true);
+            } else if (takenEmails.contains(key(row.getEmail()))) {
+                reject(job, row, "email '" + row.getEmail() + "' already exists", true);
+            } else if (takenCompanyNames.contains(key(defaultCompanyName(row.getUsername())))) {
+                reject(job, row, "company '" + defaultCompanyName(row.getUsername()) + "' already exists", true);
+            } else {
+                accepted.add(row);
+            }
+        }
+        return accepted;
+    }
+
+    // Normalises the row in place; returns why it cannot be provisioned, or null
+    private static String check(BulkUserRow row) {
+        if (row.getError() != null) {
+            return row.getError();
+        }
+        row.setUsername(trimToNull(row.getUsername()));
+        row.setEmail(trimToNull(row.getEmail()));
+        row.setPasswordHash(trimToNull(row.getPasswordHash()));
+        if (row.getUsername() == null) {
+            return "username is required";
+        }
+        if (row.getEmail() == null || !row.getEmail().contains("@")) {
+            return "a valid email is required";
+        }
+        if (row.getPasswordHash() != null) {
+            if (!BCRYPT_HASH.matcher(row.getPasswordHash()).matches()) {
+                return "password_hash is not a BCrypt hash";
+            }
+        } else if (row.getPassword() == null || row.getPassword().isEmpty()) {
+            return "password or password_hash is required";
+        }
+        return null;
+    }
+
+    private static void reject(BulkJob job, BulkUserRow row, String error, boolean skipped) {
+        job.addError("Line " + row.getLine() + ": " + error);
+        job.record(0, skipped ? 1 : 0, skipped ? 0 : 1);
+        job.advance(1);
+    }
+
+    // The given keys that the lookup finds, checked in IN-list chunks
+    private static Set<String> findTaken(Collection<String> keys, Function<List<String>, List<String>> lookup) {
+        Set<String> taken = new HashSet<>();
+        List<String> all = new ArrayList<>(keys);
+        for (int i = 0; i < all.size(); i += LOOKUP_CHUNK_SIZE) {
+            for (String found : lookup.apply(all.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, all.size())))) {
+                taken.add(key(found));
+            }
+        }
+        return taken;
+    }
+
+    // Hashes of the chunk's passwords, in row order; raw passwords are dropped once hashed
+    private List<String> hashPasswords(List<BulkUserRow> chunk) {
+        List<Future<String>> futures = new ArrayList<>(chunk.size());
+        for (BulkUserRow row : chunk) {
+            if (row.getPasswordHash() != null) {
+                String hash = row.getPasswordHash();
+                futures.add(CompletableFuture.completedFuture(hash.startsWith("{bcrypt}") ? hash : "{bcrypt}" + hash));
+            } else {
+                String rawPassword = row.getPassword();
+                futures.add(hashExecutor.submit(() -> hashingEncoder.encode(rawPassword)));
+            }
+        }
+        List<String> hashes = new ArrayList<>(chunk.size());
+        try {
+            for (Future<String> future : futures) {
+                hashes.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+        chunk.forEach(row -> row.setPassword(null));
+        return hashes;
+    }
+
+    private List<User> insertChunk(List<BulkUserRow> chunk, List<String> hashes, Company sharedCompany,
+                                   List<ProvisionedUser> results) {
+        List<Company> companies = new ArrayList<>(chunk.size());
+        if (sharedCompany == null) {
+            for (BulkUserRow row : chunk) {
+                Company company = new Company();
+                company.setName(defaultCompanyName(row.getUsername()));
+                company.setPrimaryEmail(row.getEmail());
+                company.setStatus(true);
+                companies.add(company);
+            }
+            companyRepository.saveAll(companies);
+        }
+
+        List<User> users = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            BulkUserRow row = chunk.get(i);
+            Company company = sharedCompany != null
+                    ? companyRepository.getReferenceById(sharedCompany.getId())
+                    : companies.get(i);
+            User user = new User();
+            user.setUsername(row.getUsername());
+            user.setEmail(row.getEmail());
+            user.setFirstName(row.getFirstName());
+            user.setLastName(row.getLastName());
+            user.setPassword(hashes.get(i));
+            user.setRoles(Collections.singleton(Role.ROLE_USER));
+            user.setCompanies(Collections.singleton(company));
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+
+        if (results != null) {
+            List<Token> tokens = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                Company company = sharedCompany != null ? sharedCompany : companies.get(i);
+                String familyId = UUID.randomUUID().toString();
+                String refreshTokenId = UUID.randomUUID().toString();
+                String accessToken = jwtService.generateAccessToken(user.getUsername(), company.getId(),
+                        company.getName(), familyId);
+                String refreshToken = jwtService.generateRefreshToken(user.getUsername(), company.getId(),
+                        company.getName(), familyId, refreshTokenId);
+
+                Token token = new Token();
+                token.setAccessToken(accessToken);
+                token.setRefreshToken(refreshToken);
+                token.setFamilyId(familyId);
+                token.setRefreshTokenId(refreshTokenId);
+                token.setCompanyId(company.getId());
+                token.setLoggedOut(false);
+                token.setUser(user);
+                token.setExpirationDate(jwtService.extractExpiration(refreshToken));
+                tokens.add(token);
+                results.add(new ProvisionedUser(user.getId(), user.getUsername(), company.getId(),
+                        accessToken, refreshToken));
+            }
+            tokenRepository.saveAll(tokens);
+        }
+        return users;
+    }
+
+    private static String defaultCompanyName(String username) {
+        return username + "'s Default Company";
+    }
+
+    // Usernames, emails and company names are unique regardless of case, as in the column collation
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
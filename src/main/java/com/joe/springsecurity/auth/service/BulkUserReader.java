@@ -0,0 +1,198 @@
+package com.joe.springsecurity.auth.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.springsecurity.auth.dto.BulkUserRow;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads bulk provisioning uploads line by line. NDJSON holds one user object per line; CSV needs a header row
+ * naming the columns (username, email, first_name, last_name, password, password_hash, in any order and case).
+ * CSV fields may be double-quoted, with "" for a quote, but may not span lines. A line that cannot be parsed
+ * becomes a row carrying an error, so one bad line does not reject the upload.
+ */
+@Component
+public class BulkUserReader {
+
+    private final ObjectMapper objectMapper;
+
+    public BulkUserReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public List<BulkUserRow> readNdjson(Reader reader, int maxRows) {
+        List<BulkUserRow> rows = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(reader)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                BulkUserRow row;
+                try {
+                    row = objectMapper.readValue(line, BulkUserRow.class);
+                } catch (JsonProcessingException e) {
+                    row = new BulkUserRow();
+                    row.setError("not a valid JSON object");
+                }
+                row.setLine(lineNumber);
+                add(rows, row, maxRows);
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read the upload.");
+        }
+        return rows;
+    }
+
+    public List<BulkUserRow> readCsv(Reader reader, int maxRows) {
+        List<BulkUserRow> rows = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(reader)) {
+            String headerLine = lines.readLine();
+            if (headerLine == null) {
+                return rows;
+            }
+            // A byte order mark left by spreadsheet exports would otherwise stick to the first column name
+            List<String> header = splitCsv(headerLine.replace("\uFEFF", ""));
+            if (header == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The CSV header row is malformed.");
+            }
+            Column[] columns = new Column[header.size()];
+            boolean hasUsername = false;
+            boolean hasEmail = false;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Column.of(header.get(i));
+                hasUsername |= columns[i] == Column.USERNAME;
+                hasEmail |= columns[i] == Column.EMAIL;
+            }
+            if (!hasUsername || !hasEmail) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "The CSV header must name the username and email columns.");
+            }
+
+            String line;
+            int lineNumber = 1;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                BulkUserRow row = new BulkUserRow();
+                row.setLine(lineNumber);
+                List<String> fields = splitCsv(line);
+                if (fields == null) {
+                    row.setError("unterminated quoted field");
+                } else if (fields.size() != columns.length) {
+                    row.setError("expected " + columns.length + " fields, found " + fields.size());
+                } else {
+                    for (int i = 0; i < columns.length; i++) {
+                        columns[i].set(row, fields.get(i).isEmpty() ? null : fields.get(i));
+                    }
+                }
+                add(rows, row, maxRows);
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read the upload.");
+        }
+        return rows;
+    }
+
+    private static void add(List<BulkUserRow> rows, BulkUserRow row, int maxRows) {
+        if (rows.size() == maxRows) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxRows + " users can be provisioned per request.");
+        }
+        rows.add(row);
+    }
+
+    // Fields of one CSV line, or null if a quoted field is not closed
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private enum Column {
+        USERNAME, EMAIL, FIRST_NAME, LAST_NAME, PASSWORD, PASSWORD_HASH, IGNORED;
+
+        // "first_name", "firstName" and "First Name" all name the same column
+        static Column of(String name) {
+            switch (name.replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT)) {
+                case "username":
+                    return USERNAME;
+                case "email":
+                    return EMAIL;
+                case "firstname":
+                    return FIRST_NAME;
+                case "lastname":
+                    return LAST_NAME;
+                case "password":
+                    return PASSWORD;
+                case "passwordhash":
+                    return PASSWORD_HASH;
+                default:
+                    return IGNORED;
+            }
+        }
+
+        void set(BulkUserRow row, String value) {
+            switch (this) {
+                case USERNAME:
+                    row.setUsername(value);
+                    break;
+                case EMAIL:
+                    row.setEmail(value);
+                    break;
+                case FIRST_NAME:
+                    row.setFirstName(value);
+                    break;
+                case LAST_NAME:
+                    row.setLastName(value);
+                    break;
+                case PASSWORD:
+                    row.setPassword(value);
+                    break;
+                case PASSWORD_HASH:
+                    row.setPasswordHash(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.model.User;
+import com.joe.springsecurity.utils.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.mail.MessagingException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects company switches per user and mails one notice per user per interval
+ * (app.auth.company-switch-notification.digest-interval-ms) instead of one per switch.
+ * Switching back and forth between the same companies lists each company once.
+ * Disabled entirely with app.auth.company-switch-notification.enabled=false.
+ */
+@Component
+public class CompanySwitchDigest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompanySwitchDigest.class);
+
+    private final Map<String, PendingSwitches> pending = new ConcurrentHashMap<>();
+
+    private final EmailService emailService;
+    private final boolean enabled;
+
+    public CompanySwitchDigest(EmailService emailService,
+                               @Value("${app.auth.company-switch-notification.enabled:true}") boolean enabled) {
+        this.emailService = emailService;
+        this.enabled = enabled;
+    }
+
+    public void record(User user, String companyName) {
+        if (!enabled || user.getEmail() == null) {
+            return;
+        }
+        pending.compute(user.getEmail(), (email, switches) -> {
+            PendingSwitches merged = switches != null ? switches : new PendingSwitches(user.getFirstName());
+            merged.companies.add(companyName);
+            return merged;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.company-switch-notification.digest-interval-ms:300000}")
+    public void flush() {
+        for (String email : new ArrayList<>(pending.keySet())) {
+            // remove() hands this thread the user's batch; later switches start a new one
+            PendingSwitches switches = pending.remove(email);
+            if (switches == null) {
+                continue;
+            }
+            try {
+                send(email, switches);
+            } catch (Exception e) {
+                logger.error("Failed to send company switch notification to {}: {}", email, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void send(String email, PendingSwitches switches) throws MessagingException {
+        String text = String.format("Dear %s,\n\nYou have recently switched to the following companies: %s.\n\n" +
+                        "If this was not you, please contact support immediately.\n\nBest Regards.",
+                switches.firstName, String.join(", ", switches.companies));
+        emailService.sendEmail(email, "Company Switch Notification", text);
+        logger.info("Company switch notification sent to: {}", email);
+    }
+
+    // Only touched inside ConcurrentHashMap.compute / after remove(), so plain fields are safe
+    private static final class PendingSwitches {
+        private final String firstName;
+        private final Set<String> companies = new LinkedHashSet<>();
+
+        private PendingSwitches(String firstName) {
+            this.firstName = firstName;
+        }
+    }
+}
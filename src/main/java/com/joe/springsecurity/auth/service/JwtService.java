@@ -1,9 +1,8 @@
 package com.joe.springsecurity.auth.service;
 
-import com.joe.springsecurity.auth.model.User;
 import com.joe.springsecurity.auth.repo.TokenRepository;
-import com.joe.springsecurity.company.model.Company;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -23,6 +22,9 @@ public class JwtService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
 
+    // Session token family (Token.familyId), carried by access and refresh tokens; a refresh token's own id is the jti
+    public static final String FAMILY_ID_CLAIM = "fid";
+
     // Using HS512 to generate the secret key securely
     private final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
 
@@ -48,6 +50,11 @@ public class JwtService {
         return extractClaim(token, claims -> claims.get("companyId", Long.class));
     }
 
+    // Method to extract the token family from an access or refresh token
+    public String extractFamilyId(String token) {
+        return extractClaim(token, claims -> claims.get(FAMILY_ID_CLAIM, String.class));
+    }
+
     // Method to validate the access token
     public boolean isValid(String token, UserDetails user) {
         String username = extractUsername(token);
@@ -60,20 +67,6 @@ public class JwtService {
         return (username.equals(user.getUsername())) && !isTokenExpired(token) && validToken;
     }
 
-    // Method to validate the refresh token
-    public boolean isValidRefreshToken(String token, User user) {
-        logger.debug("Validating token for user: {}", user.getUsername());
-
-        String username = extractUsername(token);
-
-        boolean validRefreshToken = tokenRepository
-                .findByRefreshToken(token)
-                .map(t -> !t.isLoggedOut())
-                .orElse(false);
-
-        return (username.equals(user.getUsername())) && !isTokenExpired(token) && validRefreshToken;
-    }
-
     // Check if the token has expired
     public boolean isTokenExpired(String token) {
         Date expiration = extractExpiration(token);
@@ -96,8 +89,8 @@ public class JwtService {
         return resolver.apply(claims);
     }
 
-    // Extract all claims from the token
-    private Claims extractAllClaims(String token) {
+    // Extract all claims from the token; parses and verifies it once for callers that need several claims
+    public Claims extractAllClaims(String token) {
         return Jwts
                 .parserBuilder()
                 .setSigningKey(SECRET_KEY)
@@ -106,26 +99,31 @@ public class JwtService {
                 .getBody();
     }
 
-    // Generate the access token for the user
-    public String generateAccessToken(User user, Company currentCompany) {
-        return generateToken(user, currentCompany, accessTokenExpire);
+    // Generate the access token for a session (token family) in one of the user's companies
+    public String generateAccessToken(String username, Long companyId, String companyName, String familyId) {
+        return generateToken(username, companyId, companyName, accessTokenExpire, familyId, null);
     }
 
-    // Generate the refresh token for the user
-    public String generateRefreshToken(User user, Company currentCompany) {
-        logger.info("Generating refresh token for user: {}", user.getUsername());
-        return generateToken(user, currentCompany, refreshTokenExpire);
+    // Generate the refresh token of a session (token family) in one of the user's companies
+    public String generateRefreshToken(String username, Long companyId, String companyName, String familyId,
+                                       String tokenId) {
+        logger.info("Generating refresh token for user: {}", username);
+        return generateToken(username, companyId, companyName, refreshTokenExpire, familyId, tokenId);
     }
 
-    private String generateToken(User user, Company currentCompany, long expireTime) {
-        return Jwts.builder()
-                .setSubject(user.getUsername())
+    private String generateToken(String username, Long companyId, String companyName, long expireTime,
+                                 String familyId, String tokenId) {
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expireTime))
-                .claim("companyId", currentCompany.getId())  // Store companyId instead of name
-                .claim("companyName", currentCompany.getName())  // Optional: keep name for convenience
-                .signWith(SECRET_KEY)
-                .compact();
+                .claim("companyId", companyId)  // Store companyId instead of name
+                .claim("companyName", companyName)  // Optional: keep name for convenience
+                .claim(FAMILY_ID_CLAIM, familyId);
+        if (tokenId != null) {
+            builder.setId(tokenId);
+        }
+        return builder.signWith(SECRET_KEY).compact();
     }
 
     // Get the signing key (HS512) for the JWT
@@ -0,0 +1,64 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.errorhandling.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-user fixed-window limit on password checks that actually reach BCrypt.
+ * Keeps one user (or a script replaying one username) from monopolising the hashing pool.
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptLimiter.class);
+    private static final int MAX_TRACKED_USERS = 50_000;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final int maxAttempts;
+    private final long windowMillis;
+
+    public LoginAttemptLimiter(
+            @Value("${application.security.password.verify-max-attempts:5}") int maxAttempts,
+            @Value("${application.security.password.verify-window-millis:60000}") long windowMillis) {
+        this.maxAttempts = maxAttempts;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Records an attempt for the user.
+     * @throws TooManyRequestsException if the user has used up the attempts for the current window.
+     */
+    public void acquire(String username) {
+        if (username == null || maxAttempts <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (windows.size() >= MAX_TRACKED_USERS) {
+            windows.values().removeIf(window -> window.start + windowMillis <= now);
+        }
+        Window window = windows.compute(username, (key, current) ->
+                current == null || current.start + windowMillis <= now ? new Window(now) : current);
+        if (window.attempts.incrementAndGet() > maxAttempts) {
+            long retryAfterSeconds = Math.max(1, (window.start + windowMillis - now + 999) / 1000);
+            logger.warn("Password verification rate limit hit for username: {}", username);
+            throw new TooManyRequestsException("Too many password attempts, retry in " + retryAfterSeconds + " seconds.",
+                    retryAfterSeconds);
+        }
+    }
+
+    private static final class Window {
+        private final long start;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private Window(long start) {
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.dto.CompanyMembership;
+import com.joe.springsecurity.cache.InvalidationBus;
+import com.joe.springsecurity.company.repo.UserCompanyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache-aside map of user id to the companies the user belongs to (id and name), read through MembershipService.
+ * At most app.cache.memberships.max-users users are kept; past that the map is cleared and refills on demand.
+ *
+ * Membership changes publish USER_COMPANIES, which evicts the user here after commit and on the other nodes.
+ * Until then the changing transaction reads that user's memberships from the database and never stores them,
+ * so uncommitted rows cannot reach the cache. A company event evicts the company's members, found through
+ * the (company_id, user_id) index, or everyone for ALL_KEYS.
+ */
+@Component
+public class MembershipCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MembershipCache.class);
+
+    private final Map<Long, List<CompanyMembership>> memberships = new ConcurrentHashMap<>();
+
+    private final UserCompanyRepository userCompanyRepository;
+    private final InvalidationBus invalidationBus;
+    private final int maxUsers;
+
+    public MembershipCache(UserCompanyRepository userCompanyRepository, InvalidationBus invalidationBus,
+                           @Value("${app.cache.memberships.max-users:10000}") int maxUsers) {
+        this.userCompanyRepository = userCompanyRepository;
+        this.invalidationBus = invalidationBus;
+        this.maxUsers = maxUsers;
+        invalidationBus.subscribe(InvalidationBus.USER_COMPANIES, this::onUserCompaniesInvalidated);
+        invalidationBus.subscribe(InvalidationBus.COMPANIES, this::onCompanyInvalidated);
+    }
+
+    public List<CompanyMembership> get(Long userId) {
+        if (changedInTransaction(userId)) {
+            return List.copyOf(userCompanyRepository.findMembershipsByUserId(userId));
+        }
+        List<CompanyMembership> cached = memberships.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        List<CompanyMembership> loaded = List.copyOf(userCompanyRepository.findMembershipsByUserId(userId));
+        if (memberships.size() >= maxUsers) {
+            logger.debug("Membership cache is full; clearing it");
+            memberships.clear();
+        }
+        memberships.put(userId, loaded);
+        return loaded;
+    }
+
+    // The cached list, or null without loading it
+    public List<CompanyMembership> peek(Long userId) {
+        return changedInTransaction(userId) ? null : memberships.get(userId);
+    }
+
+    // Takes effect after commit, or at once outside a transaction
+    public void evict(Long userId) {
+        ChangedUsers changed = currentChanges(true);
+        if (changed != null) {
+            changed.userIds.add(userId);
+        }
+        invalidationBus.publish(InvalidationBus.USER_COMPANIES, String.valueOf(userId));
+    }
+
+    // For bulk changes: one event instead of one per user
+    public void evictAll() {
+        ChangedUsers changed = currentChanges(true);
+        if (changed != null) {
+            changed.all = true;
+        }
+        invalidationBus.publish(InvalidationBus.USER_COMPANIES, InvalidationBus.ALL_KEYS);
+    }
+
+    private boolean changedInTransaction(Long userId) {
+        ChangedUsers changed = currentChanges(false);
+        return changed != null && (changed.all || changed.userIds.contains(userId));
+    }
+
+    // Users whose memberships the current transaction changed, bound to it as a resource; null outside one
+    private ChangedUsers currentChanges(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        ChangedUsers changed = (ChangedUsers) TransactionSynchronizationManager.getResource(this);
+        if (changed == null && create) {
+            ChangedUsers created = new ChangedUsers();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(MembershipCache.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(MembershipCache.this, created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MembershipCache.this);
+                }
+            });
+            return created;
+        }
+        return changed;
+    }
+
+    private void onUserCompaniesInvalidated(String key) {
+        if (InvalidationBus.ALL_KEYS.equals(key)) {
+            memberships.clear();
+        } else {
+            memberships.remove(Long.valueOf(key));
+        }
+    }
+
+    private void onCompanyInvalidated(String key) {
+        if (InvalidationBus.ALL_KEYS.equals(key) || memberships.isEmpty()) {
+            memberships.clear();
+            return;
+        }
+        userCompanyRepository.findUserIdsByCompanyId(Long.valueOf(key)).forEach(memberships::remove);
+    }
+
+    private static final class ChangedUsers {
+        private final Set<Long> userIds = new HashSet<>();
+        private boolean all;
+    }
+}
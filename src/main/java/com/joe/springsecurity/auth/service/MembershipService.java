@@ -0,0 +1,73 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.dto.CompanyMembership;
+import com.joe.springsecurity.company.repo.UserCompanyRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * User-company membership over user_companies. Reads are served from MembershipCache when the user's list is
+ * cached and otherwise by primary-key existence queries, so no caller needs to load User.companies.
+ */
+@Service
+public class MembershipService {
+
+    private final UserCompanyRepository userCompanyRepository;
+    private final MembershipCache membershipCache;
+
+    public MembershipService(UserCompanyRepository userCompanyRepository, MembershipCache membershipCache) {
+        this.userCompanyRepository = userCompanyRepository;
+        this.membershipCache = membershipCache;
+    }
+
+    public boolean isMember(Long userId, Long companyId) {
+        if (userId == null || companyId == null) {
+            return false;
+        }
+        List<CompanyMembership> cached = membershipCache.peek(userId);
+        if (cached != null) {
+            return cached.stream().anyMatch(membership -> membership.getCompanyId().equals(companyId));
+        }
+        return userCompanyRepository.isMember(userId, companyId);
+    }
+
+    // The user's companies ordered by id; cached
+    public List<CompanyMembership> getMemberships(Long userId) {
+        return membershipCache.get(userId);
+    }
+
+    public Optional<CompanyMembership> findMembership(Long userId, Long companyId) {
+        return getMemberships(userId).stream()
+                .filter(membership -> membership.getCompanyId().equals(companyId))
+                .findFirst();
+    }
+
+    /**
+     * Adds the user to the company.
+     * @return false if the user was already a member.
+     */
+    @Transactional
+    public boolean addMembership(Long userId, Long companyId) {
+        boolean added = userCompanyRepository.insertIfAbsent(userId, companyId) == 1;
+        if (added) {
+            membershipCache.evict(userId);
+        }
+        return added;
+    }
+
+    /**
+     * Removes the user from the company.
+     * @return false if the user was not a member.
+     */
+    @Transactional
+    public boolean removeMembership(Long userId, Long companyId) {
+        boolean removed = userCompanyRepository.deleteMembership(userId, companyId) == 1;
+        if (removed) {
+            membershipCache.evict(userId);
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,103 @@
+package com.joe.springsecurity.auth.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of successful password verifications for /verify-password (session unlock).
+ * Stores an HMAC of the stored hash and the presented password under a per-process random key, never
+ * the password itself. Keying on the stored hash means a password change or rehash invalidates the entry.
+ */
+@Component
+public class PasswordVerificationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public PasswordVerificationCache(
+            @Value("${application.security.password.verify-cache-ttl-millis:300000}") long ttlMillis,
+            @Value("${application.security.password.verify-cache-max-entries:10000}") int maxEntries) {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isVerified(String username, String encodedPassword, CharSequence rawPassword) {
+        if (ttlMillis <= 0 || username == null || encodedPassword == null || rawPassword == null) {
+            return false;
+        }
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(username, entry);
+            return false;
+        }
+        return MessageDigest.isEqual(entry.digest, digest(encodedPassword, rawPassword));
+    }
+
+    public void remember(String username, String encodedPassword, CharSequence rawPassword) {
+        if (ttlMillis <= 0 || username == null || encodedPassword == null || rawPassword == null) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            purgeExpired();
+        }
+        if (entries.size() < maxEntries) {
+            entries.put(username, new Entry(digest(encodedPassword, rawPassword), System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    public void evict(String username) {
+        entries.remove(username);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt < now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private byte[] digest(String encodedPassword, CharSequence rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] digest;
+        private final long expiresAt;
+
+        private Entry(byte[] digest, long expiresAt) {
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
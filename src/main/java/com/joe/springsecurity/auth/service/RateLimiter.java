@@ -0,0 +1,182 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.config.RateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets keyed by route and client key (IP or username).
+ *
+ * Each bucket is a single "theoretical arrival time" (GCRA): a request is allowed when the bucket would not
+ * run more than capacity emission intervals ahead of now, and takes its token with one compareAndSet.
+ * A sweep every app.rate-limit.eviction-interval-ms drops buckets that have fully refilled (losing nothing)
+ * and, past app.rate-limit.max-keys, the least recently seen ones, judged from a sample. The same sweep runs
+ * inline when a new key finds the map full, so a client spraying keys cannot grow it past max-keys (plus the
+ * requests in flight) even while the scheduled sweep is held up. It trims to 90% of max-keys, so requests
+ * only pay for a scan once per tenth of max-keys new keys.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    private static final int EVICTION_SAMPLE_SIZE = 256;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> rejectedByRoute = new ConcurrentHashMap<>();
+    private final int maxKeys;
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong evictionRuns = new AtomicLong();
+    private final AtomicLong evictedKeys = new AtomicLong();
+    private final AtomicLong inlineEvictionRuns = new AtomicLong();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.maxKeys = Math.max(1, properties.getMaxKeys());
+    }
+
+    /**
+     * Time until the bucket for the key has a token, without taking it; a key never seen has a full bucket.
+     * @return 0 if a request would be allowed now, otherwise the nanoseconds until it would be.
+     */
+    public long check(String route, String key, int capacity, long emissionIntervalNanos) {
+        Bucket bucket = buckets.get(route + '|' + key);
+        if (bucket == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long tat = bucket.tat.get();
+        long next = (tat - now > 0 ? tat : now) + emissionIntervalNanos;
+        return Math.max(0, next - now - emissionIntervalNanos * capacity);
+    }
+
+    // Counts a request turned away on check() without reaching tryAcquire
+    public void recordRejection(String route) {
+        rejected.incrementAndGet();
+        rejectedByRoute.computeIfAbsent(route, r -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Takes one token from the bucket for the key.
+     * @param emissionIntervalNanos time to refill one token.
+     * @return 0 if the request is allowed, otherwise the nanoseconds until the next token is available.
+     */
+    public long tryAcquire(String route, String key, int capacity, long emissionIntervalNanos) {
+        long now = System.nanoTime();
+        String bucketKey = route + '|' + key;
+        Bucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evictWhenFull(now);
+            }
+            bucket = buckets.computeIfAbsent(bucketKey, k -> new Bucket(now));
+        }
+        bucket.lastSeen = now;
+
+        long burst = emissionIntervalNanos * capacity;
+        while (true) {
+            long tat = bucket.tat.get();
+            long next = (tat - now > 0 ? tat : now) + emissionIntervalNanos;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                recordRejection(route);
+                return wait;
+            }
+            if (bucket.tat.compareAndSet(tat, next)) {
+                allowed.incrementAndGet();
+                return 0;
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("trackedKeys", buckets.size());
+        metrics.put("maxKeys", maxKeys);
+        metrics.put("allowed", allowed.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("evictionRuns", evictionRuns.get());
+        metrics.put("evictedKeys", evictedKeys.get());
+        metrics.put("inlineEvictionRuns", inlineEvictionRuns.get());
+        Map<String, Long> byRoute = new LinkedHashMap<>();
+        rejectedByRoute.forEach((route, count) -> byRoute.put(route, count.get()));
+        metrics.put("rejectedByRoute", byRoute);
+        return metrics;
+    }
+
+    // A request racing with the removal of its bucket is counted against the detached bucket, which only
+    // matters for keys idle long enough to be evicted in the first place
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:10000}")
+    public void evict() {
+        sweep(System.nanoTime());
+    }
+
+    // Called by a request whose new key finds the map full; concurrent callers wait for one sweep, not run one each
+    private synchronized void evictWhenFull(long now) {
+        if (buckets.size() >= maxKeys) {
+            inlineEvictionRuns.incrementAndGet();
+            sweep(now);
+        }
+    }
+
+    private synchronized void sweep(long now) {
+        int before = buckets.size();
+        if (before == 0) {
+            return;
+        }
+        int target = maxKeys - maxKeys / 10;
+        // A bucket whose arrival time has passed is full again; a fresh one behaves the same
+        buckets.values().removeIf(bucket -> bucket.tat.get() - now <= 0);
+        int size = buckets.size();
+        if (size > target) {
+            long cutoff = recencyCutoff((double) (size - target) / size);
+            buckets.values().removeIf(bucket -> bucket.lastSeen - cutoff < 0);
+        }
+        // The sample can miss (e.g. equal lastSeen values); still get under the target so requests stop sweeping
+        Iterator<Bucket> iterator = buckets.values().iterator();
+        while (buckets.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        int removed = before - buckets.size();
+        evictionRuns.incrementAndGet();
+        evictedKeys.addAndGet(Math.max(0, removed));
+        logger.debug("Rate limiter evicted {} of {} keys", removed, before);
+    }
+
+    // Approximate LRU: the lastSeen value below which about the given fraction of sampled buckets fall
+    private long recencyCutoff(double fraction) {
+        long[] sample = new long[EVICTION_SAMPLE_SIZE];
+        int count = 0;
+        Iterator<Bucket> iterator = buckets.values().iterator();
+        while (count < sample.length && iterator.hasNext()) {
+            sample[count++] = iterator.next().lastSeen;
+        }
+        if (count == 0) {
+            return Long.MIN_VALUE;
+        }
+        Arrays.sort(sample, 0, count);
+        int index = Math.min(count - 1, (int) Math.ceil(fraction * count));
+        return sample[index];
+    }
+
+    private static final class Bucket {
+        private final AtomicLong tat;
+        // Written without synchronisation; eviction only needs a rough idea of recency
+        private volatile long lastSeen;
+
+        private Bucket(long now) {
+            this.tat = new AtomicLong(now);
+            this.lastSeen = now;
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.joe.springsecurity.auth.service;
 
+import com.joe.springsecurity.auth.model.User;
 import com.joe.springsecurity.auth.repo.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImp implements UserDetailsService {
+public class UserDetailsServiceImp implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository repository;
 
@@ -20,4 +23,16 @@ public class UserDetailsServiceImp implements UserDetailsService {
         return repository.findByUsername(username)
                 .orElseThrow(()-> new UsernameNotFoundException("User not found"));
     }
+
+    // Called by the authentication provider after a successful login when the stored hash is
+    // unprefixed or weaker than the current BCrypt strength
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        repository.updatePassword(user.getUsername(), newPassword);
+        if (user instanceof User) {
+            ((User) user).setPassword(newPassword);
+        }
+        return user;
+    }
 }
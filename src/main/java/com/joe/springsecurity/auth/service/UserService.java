@@ -1,5 +1,7 @@
 package com.joe.springsecurity.auth.service;
 
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
 import com.joe.springsecurity.auth.model.User;
 import com.joe.springsecurity.auth.repo.UserRepository;
 import com.joe.springsecurity.company.model.Company;
@@ -8,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserService {
@@ -16,13 +19,16 @@ public class UserService {
     private final UserRepository userRepository;
     private final CompanyRepository companyRepository;
     private final JwtService jwtService;
+    private final MembershipService membershipService;
 
     @Autowired
-    public UserService(AuthenticationService authenticationService, UserRepository userRepository, CompanyRepository companyRepository, JwtService jwtService) {
+    public UserService(AuthenticationService authenticationService, UserRepository userRepository, CompanyRepository companyRepository, JwtService jwtService,
+                       MembershipService membershipService) {
         this.authenticationService = authenticationService;
         this.userRepository = userRepository;
         this.companyRepository = companyRepository;
         this.jwtService = jwtService;
+        this.membershipService = membershipService;
     }
 
     // Retrieve the current logged-in user based on JWT or session
@@ -32,25 +38,27 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    // Retrieve the current user's associated company (assuming a user has one or more companies)
+    // Retrieve the current user's company: the one named in the JWT, if the user is still a member of it
     public Company getCurrentUserCompany() {
-        User user = getCurrentUser();
-        if (user.getCompanies().isEmpty()) {
-            throw new RuntimeException("User does not belong to any company");
-        }
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || authentication.getCredentials() == null) {
             throw new IllegalStateException("Authentication context is missing or invalid");
         }
+        // JwtAuthenticationFilter has already loaded the user as the principal
+        Long userId = authentication.getPrincipal() instanceof User
+                ? ((User) authentication.getPrincipal()).getId()
+                : authenticationService.getCurrentUser().getId();
         String token = authentication.getCredentials().toString();
         Long jwtCompanyId = jwtService.extractCompanyId(token);
-        return user.getCompanies().stream()
-                .filter(company -> company.getId().equals(jwtCompanyId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("User not associated with company ID from JWT: " + jwtCompanyId));
+        if (!membershipService.isMember(userId, jwtCompanyId)) {
+            throw new RuntimeException("User not associated with company ID from JWT: " + jwtCompanyId);
+        }
+        return companyRepository.findById(jwtCompanyId)
+                .orElseThrow(() -> new RuntimeException("Company not found with ID: " + jwtCompanyId));
     }
 
     // Assign a company to a user
+    @Audited(action = ActionType.ASSIGN_USER_COMPANY, details = "Assigned a company to a user.")
     public String assignCompanyToUser(Long userId, Long companyId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -58,17 +66,16 @@ public class UserService {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company not found"));
 
-        if (user.getCompanies().contains(company)) {
+        if (!membershipService.addMembership(userId, companyId)) {
             return "User is already assigned to this company.";
         }
 
-        user.getCompanies().add(company);  // Add the company to the user's companies set
-        userRepository.save(user);  // Save the updated user
-
         return "Company " + company.getName() + " assigned to user " + user.getUsername();
     }
 
     // Remove a company from a user
+    @Audited(action = ActionType.REMOVE_USER_COMPANY, details = "Removed a company from a user.")
+    @Transactional
     public String removeCompanyFromUser(Long userId, Long companyId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -76,22 +83,18 @@ public class UserService {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company not found"));
 
-        if (!user.getCompanies().contains(company)) {
+        if (!membershipService.removeMembership(userId, companyId)) {
             return "User is not assigned to this company.";
         }
 
-        user.getCompanies().remove(company);  // Remove the company from the user's companies set
-
         // Ensure user has at least one company or assign a default company
-        if (user.getCompanies().isEmpty()) {
+        if (membershipService.getMemberships(userId).isEmpty()) {
             // Optionally, assign a default company or return an error
             Company defaultCompany = companyRepository.findByName("Default Company")
                     .orElseThrow(() -> new RuntimeException("Default company not found"));
-            user.getCompanies().add(defaultCompany);
+            membershipService.addMembership(userId, defaultCompany.getId());
         }
 
-        userRepository.save(user);  // Save the updated user
-
         return "Company " + company.getName() + " removed from user " + user.getUsername();
     }
 }
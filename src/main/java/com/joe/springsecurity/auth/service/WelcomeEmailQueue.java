@@ -0,0 +1,135 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.model.User;
+import com.joe.springsecurity.utils.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.mail.MessagingException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Welcome emails. A single registration is mailed right away; bulk-provisioned users are queued and mailed
+ * in batches of app.bulk.users.welcome-email.batch-size per app.bulk.users.welcome-email.interval-ms, each
+ * batch sent over one SMTP connection on the mail executor, so a large import neither floods that executor
+ * nor trips the provider's rate limits. The queue is in memory and holds at most max-pending emails; past that they are dropped and
+ * counted, and those users can use the password reset flow to get in.
+ */
+@Component
+public class WelcomeEmailQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(WelcomeEmailQueue.class);
+    private static final String SUBJECT = "Welcome to CMS";
+
+    private final ConcurrentLinkedQueue<SimpleMailMessage> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    private final EmailService emailService;
+    private final int batchSize;
+    private final int maxPending;
+
+    public WelcomeEmailQueue(EmailService emailService,
+                             @Value("${app.bulk.users.welcome-email.batch-size:100}") int batchSize,
+                             @Value("${app.bulk.users.welcome-email.max-pending:100000}") int maxPending) {
+        this.emailService = emailService;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+    }
+
+    public void send(User user) {
+        try {
+            emailService.sendEmail(user.getEmail(), SUBJECT, text(user));
+            logger.info("Welcome email sent to: {}", user.getEmail());
+        } catch (MessagingException e) {
+            logger.error("Failed to send welcome email to {}: {}", user.getEmail(), e.getMessage(), e);
+        }
+    }
+
+    public void enqueue(User user) {
+        if (user.getEmail() == null) {
+            return;
+        }
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(user.getEmail());
+        message.setSubject(SUBJECT);
+        message.setText(text(user));
+        pending.add(message);
+    }
+
+    // Only hands the batch to the mail executor, so a slow SMTP server never holds the shared scheduler thread.
+    // One batch is in flight at a time; while it is, later ticks leave the queue alone.
+    @Scheduled(fixedDelayString = "${app.bulk.users.welcome-email.interval-ms:10000}")
+    public void flush() {
+        if (!sending.compareAndSet(false, true)) {
+            return;
+        }
+        List<SimpleMailMessage> batch = new ArrayList<>(batchSize);
+        SimpleMailMessage message;
+        while (batch.size() < batchSize && (message = pending.poll()) != null) {
+            batch.add(message);
+        }
+        if (batch.isEmpty()) {
+            sending.set(false);
+            return;
+        }
+        pendingCount.addAndGet(-batch.size());
+        try {
+            emailService.sendBatch(batch).whenComplete((result, error) -> {
+                sending.set(false);
+                recordBatch(batch.size(), error);
+            });
+        } catch (RuntimeException e) {
+            // The mail executor refused the task, or ran it here and the send failed
+            sending.set(false);
+            recordBatch(batch.size(), e);
+        }
+    }
+
+    private void recordBatch(int size, Throwable error) {
+        if (error == null) {
+            sent.addAndGet(size);
+            logger.info("Sent {} welcome emails, {} pending", size, pendingCount.get());
+        } else {
+            // Not retried: a partial failure does not say which messages went out
+            failed.addAndGet(size);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            logger.error("Failed to send a batch of {} welcome emails: {}", size, cause.getMessage(), cause);
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pending", pendingCount.get());
+        metrics.put("sent", sent.get());
+        metrics.put("failed", failed.get());
+        metrics.put("dropped", dropped.get());
+        return metrics;
+    }
+
+    private static String text(User user) {
+        return String.format("Dear %s,\n\nWelcome to CMS! Your account has been successfully created.\n\n" +
+                        "Username: %s\nEmail: %s\n\nPlease log in to get started.\n\nBest Regards.",
+                user.getFirstName(), user.getUsername(), user.getEmail());
+    }
+}
@@ -0,0 +1,74 @@
+package com.joe.springsecurity.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber registry and after-commit local delivery shared by the bus implementations. Subclasses only
+ * decide how an event reaches the other nodes (send) and call deliver() when one arrives.
+ */
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+
+    protected final AtomicLong published = new AtomicLong();
+    protected final AtomicLong delivered = new AtomicLong();
+
+    @Override
+    public void publish(String cacheName, String key) {
+        published.incrementAndGet();
+        // Remote part joins the caller's transaction (outbox), local delivery waits for its commit
+        send(cacheName, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(cacheName, key);
+                }
+            });
+        } else {
+            deliver(cacheName, key);
+        }
+    }
+
+    @Override
+    public void subscribe(String cacheName, Consumer<String> listener) {
+        subscribers.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", mode());
+        metrics.put("published", published.get());
+        metrics.put("delivered", delivered.get());
+        return metrics;
+    }
+
+    protected abstract String mode();
+
+    protected abstract void send(String cacheName, String key);
+
+    protected void deliver(String cacheName, String key) {
+        for (Consumer<String> listener : subscribers.getOrDefault(cacheName, List.of())) {
+            try {
+                listener.accept(key);
+            } catch (Exception e) {
+                logger.error("Invalidation listener for cache '{}' failed on key '{}'", cacheName, key, e);
+            }
+        }
+        delivered.incrementAndGet();
+    }
+}
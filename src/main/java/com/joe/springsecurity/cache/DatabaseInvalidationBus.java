@@ -0,0 +1,169 @@
+package com.joe.springsecurity.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-node invalidation through an outbox table (cms_invalidation_events, V12). publish() inserts a row in
+ * the caller's transaction, so other nodes only hear about committed changes; every node polls the table
+ * each app.invalidation.poll-interval-ms and delivers rows written by other nodes. Remote caches are
+ * therefore stale for at most about one poll interval after the writer commits.
+ *
+ * Rows are read by id. AUTO_INCREMENT ids are assigned at insert but become visible at commit, so a missing id
+ * below the highest one seen is a gap: usually a transaction still open, sometimes one that rolled back.
+ * Gaps are re-read on every poll until their row appears or app.invalidation.gap-timeout-ms passes, which
+ * must exceed the longest transaction that publishes. Invalidation is idempotent, so delivering a row late
+ * is harmless. Rows older than app.invalidation.retention-ms are purged in small batches.
+ */
+public class DatabaseInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseInvalidationBus.class);
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MAX_GAPS = 10_000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    // Missing id -> when it was first noticed
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong gapsFilled = new AtomicLong();
+    private final AtomicLong gapsExpired = new AtomicLong();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long gapTimeoutMillis;
+    private final long retentionMillis;
+    // Highest id read so far; null until the first poll
+    private Long lastId;
+    private long idStep = 1;
+
+    public DatabaseInvalidationBus(JdbcTemplate jdbcTemplate, long gapTimeoutMillis, long retentionMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    @Override
+    protected String mode() {
+        return "database";
+    }
+
+    @Override
+    protected void send(String cacheName, String key) {
+        jdbcTemplate.update("INSERT INTO cms_invalidation_events (cache_name, cache_key, origin, created_at) " +
+                "VALUES (?, ?, ?, NOW(3))", cacheName, key, nodeId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        try {
+            if (lastId == null) {
+                // Start from the current end: caches are empty at startup, so older events are irrelevant
+                Long increment = jdbcTemplate.queryForObject("SELECT @@auto_increment_increment", Long.class);
+                idStep = increment != null && increment > 0 ? increment : 1;
+                lastId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cms_invalidation_events", Long.class);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            recheckGaps(now);
+            jdbcTemplate.query("SELECT id, cache_name, cache_key, origin FROM cms_invalidation_events " +
+                            "WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE,
+                    (RowCallbackHandler) rs -> {
+                        long id = rs.getLong("id");
+                        for (long missing = lastId + idStep; missing < id; missing += idStep) {
+                            if (gaps.size() >= MAX_GAPS) {
+                                logger.warn("Over {} invalidation event gaps open; id {} is no longer tracked", MAX_GAPS, missing);
+                                gapsExpired.incrementAndGet();
+                            } else {
+                                gaps.put(missing, now);
+                            }
+                        }
+                        lastId = id;
+                        receive(rs);
+                    },
+                    lastId);
+            polls.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Polling invalidation events failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.purge-interval-ms:600000}")
+    public void purge() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM cms_invalidation_events WHERE created_at < ? LIMIT 10000",
+                    new Timestamp(System.currentTimeMillis() - retentionMillis));
+            if (purged > 0) {
+                logger.debug("Purged {} invalidation events", purged);
+            }
+        } catch (Exception e) {
+            logger.error("Purging invalidation events failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = super.metrics();
+        metrics.put("nodeId", nodeId);
+        metrics.put("received", received.get());
+        metrics.put("polls", polls.get());
+        metrics.put("lastId", lastId);
+        metrics.put("openGaps", gaps.size());
+        metrics.put("gapsFilled", gapsFilled.get());
+        metrics.put("gapsExpired", gapsExpired.get());
+        return metrics;
+    }
+
+    // Delivers rows that have committed since their id was skipped, then gives up on the oldest gaps
+    private void recheckGaps(long now) {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(gaps.keySet());
+        for (int from = 0; from < ids.size(); from += 1000) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + 1000));
+            String placeholders = chunk.stream().map(id -> "?").collect(Collectors.joining(","));
+            jdbcTemplate.query("SELECT id, cache_name, cache_key, origin FROM cms_invalidation_events " +
+                            "WHERE id IN (" + placeholders + ")",
+                    (RowCallbackHandler) rs -> {
+                        gaps.remove(rs.getLong("id"));
+                        gapsFilled.incrementAndGet();
+                        receive(rs);
+                    },
+                    chunk.toArray());
+        }
+        Iterator<Map.Entry<Long, Long>> iterator = gaps.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> gap = iterator.next();
+            if (now - gap.getValue() < gapTimeoutMillis) {
+                // Noticed in id order, so the rest are younger
+                break;
+            }
+            iterator.remove();
+            gapsExpired.incrementAndGet();
+            logger.debug("Invalidation event id {} never appeared; assuming its transaction rolled back", gap.getKey());
+        }
+    }
+
+    private void receive(ResultSet rs) throws SQLException {
+        if (nodeId.equals(rs.getString("origin"))) {
+            return;
+        }
+        received.incrementAndGet();
+        deliver(rs.getString("cache_name"), rs.getString("cache_key"));
+    }
+}
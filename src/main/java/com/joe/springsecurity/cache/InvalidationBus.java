@@ -0,0 +1,25 @@
+package com.joe.springsecurity.cache;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Tells every node's in-process caches that an entry changed. Publishing inside a transaction takes
+ * effect only if it commits; subscribers on this node run after commit, and on other nodes within the
+ * delivery delay of the implementation (app.invalidation.mode: local or database).
+ */
+public interface InvalidationBus {
+
+    // Cache names; keys are ids rendered as strings, or ALL_KEYS
+    String ITEM_CATEGORIES = "item-categories";
+    String COMPANIES = "companies";
+    String USER_COMPANIES = "user-companies";
+
+    String ALL_KEYS = "*";
+
+    void publish(String cacheName, String key);
+
+    void subscribe(String cacheName, Consumer<String> listener);
+
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,30 @@
+package com.joe.springsecurity.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Picks the InvalidationBus with app.invalidation.mode: "local" (default, single node) or "database"
+ * (outbox table polled by every node). Another transport such as Redis pub/sub can be added as a further
+ * AbstractInvalidationBus subclass and mode.
+ */
+@Configuration
+public class InvalidationConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.invalidation.mode", havingValue = "database")
+    public InvalidationBus databaseInvalidationBus(JdbcTemplate jdbcTemplate,
+                                                   @Value("${app.invalidation.gap-timeout-ms:600000}") long gapTimeoutMillis,
+                                                   @Value("${app.invalidation.retention-ms:3600000}") long retentionMillis) {
+        return new DatabaseInvalidationBus(jdbcTemplate, gapTimeoutMillis, retentionMillis);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.invalidation.mode", havingValue = "local", matchIfMissing = true)
+    public InvalidationBus localInvalidationBus() {
+        return new LocalInvalidationBus();
+    }
+}
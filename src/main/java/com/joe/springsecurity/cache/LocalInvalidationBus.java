@@ -0,0 +1,15 @@
+package com.joe.springsecurity.cache;
+
+// Single-node deployments: events only reach this JVM's caches
+public class LocalInvalidationBus extends AbstractInvalidationBus {
+
+    @Override
+    protected String mode() {
+        return "local";
+    }
+
+    @Override
+    protected void send(String cacheName, String key) {
+        // Nothing to propagate
+    }
+}
@@ -6,10 +6,12 @@ import com.joe.springsecurity.email.dto.EmailConfigDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -66,10 +68,16 @@ public class CompanyController {
     // Get a single company by ID
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
-    public ResponseEntity<CompanyDTO> getCompanyById(@PathVariable Long id) {
+    public ResponseEntity<CompanyDTO> getCompanyById(@PathVariable Long id, WebRequest webRequest) {
         try {
+            // The version column alone decides whether the cached copy is still current
+            String eTag = companyService.getCompanyETag(id);
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+            }
             CompanyDTO company = companyService.getCompanyById(id);
-            return ResponseEntity.ok(company);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).body(company);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
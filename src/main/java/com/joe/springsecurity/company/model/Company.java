@@ -15,7 +15,9 @@ import java.util.Set;
 public class Company implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "companies_seq")
+    @TableGenerator(name = "companies_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_companies", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", unique = true)
@@ -43,8 +45,8 @@ public class Company implements Serializable {
 
     private boolean status = true; //Default to true(enabled)
 
-    @OneToMany(mappedBy = "company")  // The mappedBy should refer to the 'company' field in InventoryItem
-    private Set<UserCompany> userCompanies = new HashSet<>();
+    @Version
+    private long version;
 
     @OneToMany(mappedBy = "company")  // Similarly, the 'company' field in InventoryItem
     private Set<InventoryItem> inventories = new HashSet<>();  // The company owns many inventory items
@@ -166,12 +168,8 @@ public class Company implements Serializable {
         this.status = status;
     }
 
-    public Set<UserCompany> getUserCompanies() {
-        return userCompanies;
-    }
-
-    public void setUserCompanies(Set<UserCompany> userCompanies) {
-        this.userCompanies = userCompanies;
+    public long getVersion() {
+        return version;
     }
 
     public Set<InventoryItem> getInventories() {
@@ -1,47 +1,36 @@
 package com.joe.springsecurity.company.model;
 
 
-import com.joe.springsecurity.auth.model.User;
-
 import javax.persistence.*;
 
+/**
+ * One row of user_companies, the only user-company membership table. User.companies maps the same rows
+ * as a collection; membership checks and changes go through MembershipService and this entity, which
+ * carries only the two ids.
+ */
 @Entity
-@Table(name = "cms_usercompany")
+@Table(name = "user_companies")
 public class UserCompany {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @ManyToOne
-    @JoinColumn(name = "user_id")
-    private User user;
+    @EmbeddedId
+    private UserCompanyId id;
 
-    @ManyToOne
-    @JoinColumn(name = "company_id")
-    private Company company;
-
-    public Long getId() {
-        return id;
+    protected UserCompany() {
     }
 
-    public void setId(Long id) {
-        this.id = id;
+    public UserCompany(Long userId, Long companyId) {
+        this.id = new UserCompanyId(userId, companyId);
     }
 
-    public User getUser() {
-        return user;
-    }
-
-    public void setUser(User user) {
-        this.user = user;
+    public UserCompanyId getId() {
+        return id;
     }
 
-    public Company getCompany() {
-        return company;
+    public Long getUserId() {
+        return id.getUserId();
     }
 
-    public void setCompany(Company company) {
-        this.company = company;
+    public Long getCompanyId() {
+        return id.getCompanyId();
     }
 }
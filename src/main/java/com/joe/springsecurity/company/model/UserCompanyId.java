@@ -0,0 +1,46 @@
+package com.joe.springsecurity.company.model;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+// Composite key of user_companies: (user_id, company_id)
+@Embeddable
+public class UserCompanyId implements Serializable {
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "company_id")
+    private Long companyId;
+
+    protected UserCompanyId() {
+    }
+
+    public UserCompanyId(Long userId, Long companyId) {
+        this.userId = userId;
+        this.companyId = companyId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UserCompanyId)) return false;
+        UserCompanyId that = (UserCompanyId) o;
+        return Objects.equals(userId, that.userId) && Objects.equals(companyId, that.companyId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, companyId);
+    }
+}
@@ -4,8 +4,12 @@ import com.joe.springsecurity.company.model.Company;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,6 +17,25 @@ public interface CompanyRepository extends JpaRepository<Company, Long> {
 
     Optional<Company> findByName(String name);
 
+    // Existence check (select ... limit 1) instead of loading rows just to test for emptiness
+    boolean existsByIdNotNull();
+
+    // Version column only, for ETag checks that must not load the company
+    @Query("SELECT c.version FROM Company c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Recipient of company notifications such as the low-stock digest
+    @Query("SELECT c.primaryEmail FROM Company c WHERE c.id = :id")
+    Optional<String> findPrimaryEmailById(@Param("id") Long id);
+
+    // Ids out of the given ones that exist
+    @Query("SELECT c.id FROM Company c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Names out of the given ones that are taken
+    @Query("SELECT c.name FROM Company c WHERE c.name IN :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
     // Paginate through all companies
     Page<Company> findAll(Pageable pageable);
 }
@@ -1,9 +1,43 @@
 package com.joe.springsecurity.company.repo;
 
+import com.joe.springsecurity.auth.dto.CompanyMembership;
 import com.joe.springsecurity.company.model.UserCompany;
+import com.joe.springsecurity.company.model.UserCompanyId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface UserCompanyRepository extends JpaRepository<UserCompany, Long> {
+public interface UserCompanyRepository extends JpaRepository<UserCompany, UserCompanyId> {
+
+    // Primary key lookup on (user_id, company_id)
+    @Query("SELECT COUNT(uc) > 0 FROM UserCompany uc WHERE uc.id.userId = :userId AND uc.id.companyId = :companyId")
+    boolean isMember(@Param("userId") Long userId, @Param("companyId") Long companyId);
+
+    @Query("SELECT new com.joe.springsecurity.auth.dto.CompanyMembership(c.id, c.name) " +
+            "FROM UserCompany uc JOIN Company c ON c.id = uc.id.companyId " +
+            "WHERE uc.id.userId = :userId ORDER BY c.id")
+    List<CompanyMembership> findMembershipsByUserId(@Param("userId") Long userId);
+
+    // Uses idx_user_companies_company_user
+    @Query("SELECT uc.id.userId FROM UserCompany uc WHERE uc.id.companyId = :companyId")
+    List<Long> findUserIdsByCompanyId(@Param("companyId") Long companyId);
+
+    // Which of the given users are already members; a range of lookups on idx_user_companies_company_user
+    @Query("SELECT uc.id.userId FROM UserCompany uc WHERE uc.id.companyId = :companyId AND uc.id.userId IN :userIds")
+    List<Long> findMemberIds(@Param("companyId") Long companyId, @Param("userIds") Collection<Long> userIds);
+
+    // 1 if the membership was added, 0 if it already existed
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_companies (user_id, company_id) VALUES (:userId, :companyId)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("companyId") Long companyId);
+
+    @Modifying
+    @Query("DELETE FROM UserCompany uc WHERE uc.id.userId = :userId AND uc.id.companyId = :companyId")
+    int deleteMembership(@Param("userId") Long userId, @Param("companyId") Long companyId);
 }
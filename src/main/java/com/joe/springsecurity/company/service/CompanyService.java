@@ -1,5 +1,8 @@
 package com.joe.springsecurity.company.service;
 
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
+import com.joe.springsecurity.cache.InvalidationBus;
 import com.joe.springsecurity.company.dto.CompanyDTO;
 import com.joe.springsecurity.company.model.Company;
 import com.joe.springsecurity.company.repo.CompanyRepository;
@@ -24,14 +27,18 @@ public class CompanyService {
     private final CompanyRepository companyRepository;
     private final EmailConfigRepository emailConfigRepository;
     private final CountryRepository countryRepository;
+    private final InvalidationBus invalidationBus;
 
-    public CompanyService(CompanyRepository companyRepository, EmailConfigRepository emailConfigRepository, CountryRepository countryRepository) {
+    public CompanyService(CompanyRepository companyRepository, EmailConfigRepository emailConfigRepository, CountryRepository countryRepository,
+                          InvalidationBus invalidationBus) {
         this.companyRepository = companyRepository;
         this.emailConfigRepository = emailConfigRepository;
         this.countryRepository = countryRepository;
+        this.invalidationBus = invalidationBus;
     }
 
     // Create a new company
+    @Audited(action = ActionType.CREATE_COMPANY, details = "Created a new company.")
     public CompanyDTO createCompany(CompanyDTO companyDTO) {
         Optional<Company> existingCompany = companyRepository.findByName(companyDTO.getName());
         if (existingCompany.isPresent()) {
@@ -62,6 +69,7 @@ public class CompanyService {
         return new CompanyDTO(savedCompany); // Convert saved Company to DTO
     }
 
+    @Audited(action = ActionType.UPDATE_COMPANY, details = "Updated a company.")
     public CompanyDTO updateCompany(Long companyId, CompanyDTO companyDTO) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company with ID " + companyId + " not found."));
@@ -86,6 +94,8 @@ public class CompanyService {
         company.setStatus(companyDTO.isStatus()); // Set status
 
         Company updatedCompany = companyRepository.save(company);
+        // Cached company names (memberships) on every node must notice a rename
+        invalidationBus.publish(InvalidationBus.COMPANIES, String.valueOf(companyId));
 
         return new CompanyDTO(updatedCompany); // Return the updated CompanyDTO
     }
@@ -100,6 +110,13 @@ public class CompanyService {
         return companies.map(CompanyDTO::new);
     }
 
+    // Weak ETag for a single company (weak so the response can still be gzipped), or null when it does not exist
+    public String getCompanyETag(Long id) {
+        return companyRepository.findVersionById(id)
+                .map(version -> "W/\"company-" + id + "-" + version + "\"")
+                .orElse(null);
+    }
+
     // Get a single company by ID
     public CompanyDTO getCompanyById(Long id) {
         Company company = companyRepository.findById(id)
@@ -109,6 +126,7 @@ public class CompanyService {
     }
 
     // Delete a company by ID
+    @Audited(action = ActionType.DELETE_COMPANY, details = "Deleted a company.")
     public void deleteCompany(Long id) {
         Optional<Company> company = companyRepository.findById(id);
         if (!company.isPresent()) {
@@ -116,25 +134,32 @@ public class CompanyService {
         }
 
         companyRepository.deleteById(id);
+        invalidationBus.publish(InvalidationBus.COMPANIES, String.valueOf(id));
     }
 
     // Enable a company
+    @Audited(action = ActionType.ENABLE_COMPANY, details = "Enabled a company.")
     public CompanyDTO enableCompany(Long companyId) {
         Company company = companyRepository.findById(companyId).orElseThrow(() ->
                 new RuntimeException("Company not found with ID: " + companyId));
 
         company.setStatus(true);
         Company updatedCompany = companyRepository.save(company);
+        // Cached tenant data on every node must notice the status change
+        invalidationBus.publish(InvalidationBus.COMPANIES, String.valueOf(companyId));
         return new CompanyDTO(updatedCompany);
     }
 
     // Disable a company
+    @Audited(action = ActionType.DISABLE_COMPANY, details = "Disabled a company.")
     public CompanyDTO disableCompany(Long companyId) {
         Company company = companyRepository.findById(companyId).orElseThrow(() ->
                 new RuntimeException("Company not found with ID: " + companyId));
 
         company.setStatus(false);
         Company updatedCompany = companyRepository.save(company);
+        // Cached tenant data on every node must notice the status change
+        invalidationBus.publish(InvalidationBus.COMPANIES, String.valueOf(companyId));
         return new CompanyDTO(updatedCompany);
     }
 
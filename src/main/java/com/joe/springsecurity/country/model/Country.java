@@ -8,7 +8,9 @@ import java.io.Serializable;
 public class Country implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "countries_seq")
+    @TableGenerator(name = "countries_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_countries", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -1,6 +1,8 @@
 package com.joe.springsecurity.country.service;
 
 
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
 import com.joe.springsecurity.country.dto.CountryDTO;
 import com.joe.springsecurity.country.model.Country;
 import com.joe.springsecurity.country.repo.CountryRepository;
@@ -24,6 +26,7 @@ public class CountryService {
     }
 
     // Create a new Country
+    @Audited(action = ActionType.CREATE_COUNTRY, details = "Created a new country.")
     public CountryDTO createCountry(CountryDTO countryDTO) {
         // Check for existing country with the same name to avoid duplicates
         Optional<Country> existingCountry = countryRepository.findByName(countryDTO.getName());
@@ -42,6 +45,7 @@ public class CountryService {
     }
 
     // Update an existing country
+    @Audited(action = ActionType.UPDATE_COUNTRY, details = "Updated a country.")
     public CountryDTO updateCountry(Long countryId, CountryDTO countryDTO) {
         // Check if the country exists
         Country country = countryRepository.findById(countryId)
@@ -72,6 +76,7 @@ public class CountryService {
     }
 
     // Delete a Country by ID
+    @Audited(action = ActionType.DELETE_COUNTRY, details = "Deleted a country.")
     public void deleteCountry(Long id) {
         Optional<Country> country = countryRepository.findById(id);
         if (!country.isPresent()) {
@@ -10,7 +10,9 @@ import java.io.Serializable;
 public class EmailConfig implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "email_configs_seq")
+    @TableGenerator(name = "email_configs_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_email_configs", allocationSize = 50)
     private Long id;
 
     private String smtpHost;
@@ -1,5 +1,7 @@
 package com.joe.springsecurity.email.service;
 
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
 import com.joe.springsecurity.company.model.Company;
 import com.joe.springsecurity.company.repo.CompanyRepository;
 import com.joe.springsecurity.email.dto.EmailConfigDTO;
@@ -20,6 +22,7 @@ public class EmailConfigService {
         this.companyRepository = companyRepository;
     }
 
+    @Audited(action = ActionType.CREATE_EMAIL_CONFIG, details = "Created an email configuration.")
     public EmailConfigDTO createEmailConfig(Long companyId, EmailConfigDTO emailConfigDTO) {
         // Check if the company exists
         Company company = companyRepository.findById(companyId).orElseThrow(() -> new RuntimeException("Company does not exist"));
@@ -49,6 +52,7 @@ public class EmailConfigService {
         );
     }
 
+    @Audited(action = ActionType.UPDATE_EMAIL_CONFIG, details = "Updated an email configuration.")
     public EmailConfigDTO updateEmailConfig(Long companyId, EmailConfigDTO emailConfigDTO) {
         // Check if the company exists
         Company company = companyRepository.findById(companyId).orElseThrow(() -> new RuntimeException("Company does not exist"));
@@ -83,6 +87,7 @@ public class EmailConfigService {
     }
 
     // Activate the email configuration for a company
+    @Audited(action = ActionType.ACTIVATE_EMAIL_CONFIG, details = "Activated an email configuration.")
     public EmailConfigDTO activateEmailConfig(Long companyId) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company does not exist"));
@@ -98,6 +103,7 @@ public class EmailConfigService {
     }
 
     // Deactivate the email configuration for a company
+    @Audited(action = ActionType.DEACTIVATE_EMAIL_CONFIG, details = "Deactivated an email configuration.")
     public EmailConfigDTO deactivateEmailConfig(Long companyId) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company does not exist"));
@@ -0,0 +1,20 @@
+package com.joe.springsecurity.errorhandling;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    // Seconds the client should wait before retrying, or 0 when unknown
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message) {
+        this(message, 0);
+    }
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,49 @@
+package com.joe.springsecurity.init;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * spring.flyway.baseline-on-migrate only baselines a schema that has no flyway_schema_history table. If that
+ * table exists but is empty (an earlier run that failed before V1 recorded anything), Flyway would run V1
+ * against the tables that are already there. This strategy baselines such a schema first, so migration
+ * resumes at V2 whatever state the history table was left in.
+ */
+@Configuration
+public class FlywayConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlywayConfig.class);
+
+    // Created by V1; its presence means the baseline schema is already in place
+    private static final String BASELINE_TABLE = "cms_users";
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy() {
+        return flyway -> {
+            if (flyway.info().applied().length == 0 && baselineTableExists(flyway)) {
+                logger.info("No applied migrations recorded but {} exists; baselining at version {}",
+                        BASELINE_TABLE, flyway.getConfiguration().getBaselineVersion());
+                flyway.baseline();
+            }
+            flyway.migrate();
+        };
+    }
+
+    private static boolean baselineTableExists(Flyway flyway) {
+        try (Connection connection = flyway.getConfiguration().getDataSource().getConnection();
+             ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null,
+                     BASELINE_TABLE, new String[]{"TABLE"})) {
+            return tables.next();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not inspect the schema before migrating", e);
+        }
+    }
+}
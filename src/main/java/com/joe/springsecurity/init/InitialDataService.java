@@ -8,13 +8,13 @@ import com.joe.springsecurity.company.repo.CompanyRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.annotation.PostConstruct;
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 
 @Service
@@ -32,11 +32,13 @@ public class InitialDataService {
         this.passwordEncoder = passwordEncoder;
     }
 
-    @PostConstruct
+    // Runs once the application is ready to serve requests rather than during bean creation,
+    // so the existence checks and the BCrypt hash below stay off the startup critical path.
+    @EventListener(ApplicationReadyEvent.class)
     @Transactional
     public void initDefaultCompaniesAndUser() {
         // Add default companies if none exist
-        if (!companyRepository.findAll().iterator().hasNext()) {
+        if (!companyRepository.existsByIdNotNull()) {
             Company companyA = new Company();
             companyA.setName("Company A");
             companyRepository.save(companyA);
@@ -51,7 +53,7 @@ public class InitialDataService {
         }
 
         // Add default super admin user if no user exists
-        if (!userRepository.findByUsername("Johnny").isPresent()) {
+        if (!userRepository.existsByUsername("Johnny")) {
             User newUser = createSuperAdminUser();
             userRepository.save(newUser);
 
@@ -0,0 +1,65 @@
+package com.joe.springsecurity.init;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Logs the slowest startup steps once the application is ready.
+ * Only active when the application was started with -Dapp.startup.metrics=true, which makes
+ * SpringsecurityApplication record steps in a BufferingApplicationStartup.
+ */
+@Component
+public class StartupMetricsReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupMetricsReporter.class);
+    private static final int SLOWEST_STEPS = 15;
+
+    private final ApplicationStartup applicationStartup;
+
+    public StartupMetricsReporter(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportStartupSteps(ApplicationReadyEvent event) {
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).drainBufferedTimeline();
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(SLOWEST_STEPS)
+                .collect(Collectors.toList());
+
+        Duration total = Duration.between(timeline.getStartTime(), Instant.ofEpochMilli(event.getTimestamp()));
+        logger.info("Application ready {} ms after startup began; {} steps recorded, slowest {}:",
+                total.toMillis(), timeline.getEvents().size(), slowest.size());
+        for (StartupTimeline.TimelineEvent step : slowest) {
+            logger.info("  {} ms  {} {}", step.getDuration().toMillis(), step.getStartupStep().getName(),
+                    describeTags(step));
+        }
+    }
+
+    private String describeTags(StartupTimeline.TimelineEvent step) {
+        StringBuilder tags = new StringBuilder();
+        step.getStartupStep().getTags().forEach(tag -> {
+            if (tags.length() > 0) {
+                tags.append(", ");
+            }
+            tags.append(tag.getKey()).append('=').append(tag.getValue());
+        });
+        return tags.toString();
+    }
+}
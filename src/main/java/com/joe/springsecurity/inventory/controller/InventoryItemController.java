@@ -1,25 +1,41 @@
 package com.joe.springsecurity.inventory.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.springsecurity.errorhandling.ErrorResponse;
 import com.joe.springsecurity.errorhandling.UnauthorizedAccessException;
 import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
+import com.joe.springsecurity.inventory.dto.InventoryItemFilter;
+import com.joe.springsecurity.inventory.dto.ItemSuggestionDTO;
+import com.joe.springsecurity.inventory.dto.StockAdjustmentDTO;
 import com.joe.springsecurity.inventory.model.InventoryItem;
+import com.joe.springsecurity.inventory.model.StockMovement;
 import com.joe.springsecurity.inventory.service.InventoryItemService;
+import com.joe.springsecurity.utils.PageJsonWriter;
+import com.joe.springsecurity.utils.PageResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.HashMap;
-
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,46 +45,103 @@ import java.util.stream.Collectors;
 public class InventoryItemController {
     private static final Logger logger = LoggerFactory.getLogger(InventoryItemController.class);
     private final InventoryItemService inventoryItemService;
+    private final ObjectMapper objectMapper;
+    private final int streamPageThreshold;
 
     @Autowired
-    public InventoryItemController(InventoryItemService inventoryItemService) {
+    public InventoryItemController(InventoryItemService inventoryItemService, ObjectMapper objectMapper,
+                                   @Value("${app.json.stream-page-threshold:500}") int streamPageThreshold) {
         this.inventoryItemService = inventoryItemService;
+        this.objectMapper = objectMapper;
+        this.streamPageThreshold = streamPageThreshold;
     }
 
     @GetMapping("/list")
-    public ResponseEntity<Map<String, Object>> getAllInventoryItems(Pageable pageable) {
+    public ResponseEntity<?> getAllInventoryItems(Pageable pageable, WebRequest webRequest,
+                                                  HttpServletResponse response) {
         logger.info("Received request to list inventory items, page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
         try {
+            // Clients poll this endpoint; answer 304 from the collection version before touching any item rows
+            String eTag = inventoryItemService.getInventoryItemsETag();
+            if (webRequest.checkNotModified(eTag)) {
+                logger.debug("Inventory items unchanged for ETag {}", eTag);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+            }
             Page<InventoryItemDTO> page = inventoryItemService.getAllInventoryItems(pageable);
-            Map<String, Object> response = new HashMap<>();
-            response.put("items", page.getContent());
-            response.put("currentPage", page.getNumber());
-            response.put("totalItems", page.getTotalElements());
-            response.put("totalPages", page.getTotalPages());
-            response.put("size", page.getSize());
             logger.info("Returning {} inventory items", page.getTotalElements());
-            return ResponseEntity.ok(response);
+            if (page.getNumberOfElements() >= streamPageThreshold) {
+                response.setHeader(HttpHeaders.ETAG, eTag);
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+                PageJsonWriter.write(response, objectMapper, page);
+                return null;
+            }
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).body(PageResponse.of(page));
         } catch (UnauthorizedAccessException e) {
             logger.warn("Unauthorized access: {}", e.getMessage());
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", "UNAUTHORIZED");
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("UNAUTHORIZED", e.getMessage()));
         } catch (ResponseStatusException e) {
             logger.warn("Response status exception: {}", e.getMessage());
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", e.getReason() != null ? e.getReason() : "ERROR");
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(e.getStatus()).body(errorResponse);
+            return ResponseEntity.status(e.getStatus())
+                    .body(new ErrorResponse(e.getReason() != null ? e.getReason() : "ERROR", e.getMessage()));
         } catch (Exception e) {
             logger.error("Internal server error while fetching inventory items", e);
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", "INTERNAL_SERVER_ERROR");
-            errorResponse.put("message", "Failed to fetch inventory items: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to fetch inventory items: " + e.getMessage()));
+        }
+    }
+
+
+    // e.g. /filter?itemType=GOODS&maxQuantity=5&minPrice=10&sort=price,desc
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterInventoryItems(@ModelAttribute InventoryItemFilter filter, Pageable pageable) {
+        logger.debug("Received request to filter inventory items: {}", filter);
+        try {
+            return ResponseEntity.ok(PageResponse.of(inventoryItemService.filterInventoryItems(filter, pageable)));
+        } catch (UnauthorizedAccessException e) {
+            logger.warn("Unauthorized access: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("UNAUTHORIZED", e.getMessage()));
+        } catch (ResponseStatusException e) {
+            logger.warn("Response status exception: {}", e.getMessage());
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse("BAD_REQUEST", e.getReason()));
+        } catch (Exception e) {
+            logger.error("Internal server error while filtering inventory items", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to filter inventory items: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchInventoryItems(@RequestParam("q") String query, Pageable pageable) {
+        logger.debug("Received request to search inventory items for '{}'", query);
+        try {
+            return ResponseEntity.ok(PageResponse.of(inventoryItemService.searchInventoryItems(query, pageable)));
+        } catch (UnauthorizedAccessException e) {
+            logger.warn("Unauthorized access: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("UNAUTHORIZED", e.getMessage()));
+        } catch (ResponseStatusException e) {
+            logger.warn("Response status exception: {}", e.getMessage());
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse("BAD_REQUEST", e.getReason()));
+        } catch (Exception e) {
+            logger.error("Internal server error while searching inventory items", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to search inventory items: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<ItemSuggestionDTO>> suggestInventoryItems(@RequestParam("q") String prefix,
+                                                                         @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(inventoryItemService.suggestInventoryItems(prefix, limit));
+        } catch (UnauthorizedAccessException e) {
+            logger.warn("Unauthorized access: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        } catch (Exception e) {
+            logger.error("Internal server error while suggesting inventory items", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
 
     @GetMapping("/count")
     public ResponseEntity<Long> getInventoryItemCount() {
@@ -90,7 +163,7 @@ public class InventoryItemController {
         logger.debug("Received request to fetch inventory item with ID: {}", id);
         try {
             InventoryItemDTO item = inventoryItemService.getInventoryItemById(id);
-            return ResponseEntity.ok(item);
+            return ResponseEntity.ok().eTag(String.valueOf(item.getVersion())).body(item);
         } catch (UnauthorizedAccessException e) {
             logger.warn("Unauthorized access: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
@@ -124,11 +197,15 @@ public class InventoryItemController {
 
     @PutMapping("/update/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
-    public ResponseEntity<InventoryItemDTO> updateInventoryItem(@PathVariable Long id, @Valid @RequestBody InventoryItem inventoryItem, @RequestParam Long itemCategoryId) {
+    public ResponseEntity<InventoryItemDTO> updateInventoryItem(@PathVariable Long id, @Valid @RequestBody InventoryItem inventoryItem, @RequestParam Long itemCategoryId,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.debug("Received request to update inventory item with ID: {}", id);
         try {
-            InventoryItemDTO updatedItem = inventoryItemService.updateInventoryItem(id, inventoryItem, itemCategoryId);
-            return ResponseEntity.ok(updatedItem);
+            InventoryItemDTO updatedItem = inventoryItemService.updateInventoryItem(id, inventoryItem, itemCategoryId, parseVersions(ifMatch));
+            return ResponseEntity.ok().eTag(String.valueOf(updatedItem.getVersion())).body(updatedItem);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Concurrent modification of inventory item ID: {}", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
         } catch (UnauthorizedAccessException e) {
             logger.warn("Unauthorized access: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
@@ -141,6 +218,48 @@ public class InventoryItemController {
         }
     }
 
+    @PatchMapping("/{id}/stock")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'MANAGER', 'CASHIER')")
+    public ResponseEntity<InventoryItemDTO> adjustStock(@PathVariable Long id, @Valid @RequestBody StockAdjustmentDTO adjustment) {
+        logger.debug("Received request to adjust stock of inventory item ID: {} by {}", id, adjustment.getDelta());
+        try {
+            return ResponseEntity.ok(inventoryItemService.adjustStock(id, adjustment));
+        } catch (UnauthorizedAccessException e) {
+            logger.warn("Unauthorized access: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        } catch (ResponseStatusException e) {
+            logger.warn("Response status exception: {}", e.getMessage());
+            return ResponseEntity.status(e.getStatus()).body(null);
+        } catch (Exception e) {
+            logger.error("Internal server error while adjusting stock of inventory item ID: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Fire-and-forget variant for high-volume point-of-sale traffic: the movement is stored and applied
+    // by the coalescer shortly after, so the response is 202 rather than the new quantity
+    @PostMapping("/{id}/movements")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'MANAGER', 'CASHIER')")
+    public ResponseEntity<Map<String, Object>> recordStockMovement(@PathVariable Long id, @Valid @RequestBody StockAdjustmentDTO adjustment) {
+        logger.debug("Received stock movement for inventory item ID: {} of {}", id, adjustment.getDelta());
+        try {
+            StockMovement movement = inventoryItemService.recordStockMovement(id, adjustment);
+            Map<String, Object> response = new HashMap<>();
+            response.put("movementId", movement.getId());
+            response.put("status", movement.getStatus());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (UnauthorizedAccessException e) {
+            logger.warn("Unauthorized access: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        } catch (ResponseStatusException e) {
+            logger.warn("Response status exception: {}", e.getMessage());
+            return ResponseEntity.status(e.getStatus()).body(null);
+        } catch (Exception e) {
+            logger.error("Internal server error while recording stock movement for inventory item ID: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteInventoryItem(@PathVariable Long id) {
@@ -164,35 +283,56 @@ public class InventoryItemController {
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<Map<String, Object>> getInventoryItemsByCategory(@PathVariable Long categoryId, Pageable pageable) {
+    public ResponseEntity<?> getInventoryItemsByCategory(@PathVariable Long categoryId, Pageable pageable,
+                                                         HttpServletResponse response) {
         logger.debug("Received request to fetch inventory items by category ID: {}", categoryId);
         try {
             Page<InventoryItemDTO> page = inventoryItemService.getInventoryItemsByCategory(categoryId, pageable);
-            Map<String, Object> response = new HashMap<>();
-            response.put("items", page.getContent());
-            response.put("currentPage", page.getNumber());
-            response.put("totalItems", page.getTotalElements());
-            response.put("totalPages", page.getTotalPages());
-            response.put("size", page.getSize());
-            return ResponseEntity.ok(response);
+            if (page.getNumberOfElements() >= streamPageThreshold) {
+                PageJsonWriter.write(response, objectMapper, page);
+                return null;
+            }
+            return ResponseEntity.ok(PageResponse.of(page));
         } catch (UnauthorizedAccessException e) {
             logger.warn("Unauthorized access: {}", e.getMessage());
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", "UNAUTHORIZED");
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("UNAUTHORIZED", e.getMessage()));
         } catch (ResponseStatusException e) {
             logger.warn("Response status exception: {}", e.getMessage());
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", "BAD_REQUEST");
-            errorResponse.put("message", e.getReason());
-            return ResponseEntity.status(e.getStatus()).body(errorResponse);
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse("BAD_REQUEST", e.getReason()));
         } catch (Exception e) {
             logger.error("Internal server error while fetching inventory items by category ID: {}", categoryId, e);
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", "INTERNAL_SERVER_ERROR");
-            errorResponse.put("message", "Failed to fetch inventory items by category: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to fetch inventory items by category: " + e.getMessage()));
+        }
+    }
+
+    // If-Match compares strongly (RFC 7232 3.1): the item ETag is its quoted version, a weak tag matches nothing and
+    // "*" matches any existing item. A bare number is taken as a version too, for clients echoing the DTO field.
+    // Null when the header is absent.
+    private static Set<Long> parseVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return Set.of(InventoryItemService.ANY_VERSION);
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                tag = tag.substring(1, tag.length() - 1);
+            }
+            if (!tag.isEmpty() && tag.chars().allMatch(Character::isDigit)) {
+                try {
+                    versions.add(Long.parseLong(tag));
+                } catch (NumberFormatException e) {
+                    // Too large to be a version
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not name a version of this item.");
         }
+        return versions;
     }
 }
@@ -1,23 +1,32 @@
 package com.joe.springsecurity.inventory.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.springsecurity.errorhandling.ErrorResponse;
 import com.joe.springsecurity.errorhandling.UnauthorizedAccessException;
 import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
 import com.joe.springsecurity.inventory.dto.ItemCategoryDTO;
 import com.joe.springsecurity.inventory.model.InventoryItem;
 import com.joe.springsecurity.inventory.model.ItemCategory;
 import com.joe.springsecurity.inventory.service.ItemCategoryService;
+import com.joe.springsecurity.utils.PageJsonWriter;
+import com.joe.springsecurity.utils.PageResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.HashMap;
 import java.util.List;
@@ -31,10 +40,15 @@ public class ItemCategoryController {
     private static final Logger logger = LoggerFactory.getLogger(ItemCategoryController.class);
 
     private final ItemCategoryService itemCategoryService;
+    private final ObjectMapper objectMapper;
+    private final int streamPageThreshold;
 
     @Autowired
-    public ItemCategoryController(ItemCategoryService itemCategoryService) {
+    public ItemCategoryController(ItemCategoryService itemCategoryService, ObjectMapper objectMapper,
+                                  @Value("${app.json.stream-page-threshold:500}") int streamPageThreshold) {
         this.itemCategoryService = itemCategoryService;
+        this.objectMapper = objectMapper;
+        this.streamPageThreshold = streamPageThreshold;
     }
 
     @PostMapping("/create")
@@ -66,37 +80,55 @@ public class ItemCategoryController {
     }
 
     @GetMapping("/list")
-    public ResponseEntity<Map<String, Object>> getAllItemCategories(Pageable pageable) {
+    public ResponseEntity<?> getAllItemCategories(Pageable pageable, WebRequest webRequest,
+                                                  HttpServletResponse response) {
         logger.info("Received request to list item categories, page: {}, size: {}",
                 pageable.getPageNumber(), pageable.getPageSize());
         try {
+            String eTag = itemCategoryService.getItemCategoriesETag();
+            if (webRequest.checkNotModified(eTag)) {
+                logger.debug("Item categories unchanged for ETag {}", eTag);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+            }
             Page<ItemCategoryDTO> page = itemCategoryService.getAllItemCategories(pageable);
-            Map<String, Object> response = new HashMap<>();
-            response.put("items", page.getContent());
-            response.put("currentPage", page.getNumber());
-            response.put("totalItems", page.getTotalElements());
-            response.put("totalPages", page.getTotalPages());
-            response.put("size", page.getSize());
             logger.info("Returning {} item categories", page.getTotalElements());
-            return ResponseEntity.ok(response);
+            if (page.getNumberOfElements() >= streamPageThreshold) {
+                response.setHeader(HttpHeaders.ETAG, eTag);
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+                PageJsonWriter.write(response, objectMapper, page);
+                return null;
+            }
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).body(PageResponse.of(page));
         } catch (UnauthorizedAccessException e) {
             logger.warn("Unauthorized access: {}", e.getMessage());
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", "UNAUTHORIZED");
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("UNAUTHORIZED", e.getMessage()));
         } catch (ResponseStatusException e) {
             logger.warn("Response status exception: {}", e.getMessage());
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", e.getReason() != null ? e.getReason() : "ERROR");
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(e.getStatus()).body(errorResponse);
+            return ResponseEntity.status(e.getStatus())
+                    .body(new ErrorResponse(e.getReason() != null ? e.getReason() : "ERROR", e.getMessage()));
         } catch (Exception e) {
             logger.error("Internal server error while fetching item categories", e);
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("errorCode", "INTERNAL_SERVER_ERROR");
-            errorResponse.put("message", "Failed to fetch item categories: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to fetch item categories: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItemCategories(@RequestParam("q") String query, Pageable pageable) {
+        logger.debug("Received request to search item categories for '{}'", query);
+        try {
+            return ResponseEntity.ok(PageResponse.of(itemCategoryService.searchItemCategories(query, pageable)));
+        } catch (UnauthorizedAccessException e) {
+            logger.warn("Unauthorized access: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponse("UNAUTHORIZED", e.getMessage()));
+        } catch (ResponseStatusException e) {
+            logger.warn("Response status exception: {}", e.getMessage());
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse("BAD_REQUEST", e.getReason()));
+        } catch (Exception e) {
+            logger.error("Internal server error while searching item categories", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_SERVER_ERROR", "Failed to search item categories: " + e.getMessage()));
         }
     }
 
@@ -243,4 +275,4 @@ public class ItemCategoryController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+}
@@ -10,6 +10,9 @@ public class InventoryItemDTO {
     private String description;
     private double totalPrice;
     private Long itemCategoryId;
+    private Integer reorderLevel;
+    // Optimistic lock version, sent back as If-Match on full updates
+    private Long version;
 
     public InventoryItemDTO(Long id, String name, int quantity, double price, String description, Long itemCategoryId) {
         this.id = id;
@@ -21,6 +24,14 @@ public class InventoryItemDTO {
         this.itemCategoryId = itemCategoryId;
     }
 
+    // Full projection used by the listing queries; carries the version so a listed item can be updated directly
+    public InventoryItemDTO(Long id, String name, int quantity, double price, String description, Long itemCategoryId,
+                            Integer reorderLevel, Long version) {
+        this(id, name, quantity, price, description, itemCategoryId);
+        this.reorderLevel = reorderLevel;
+        this.version = version;
+    }
+
     // Getters and setters
     public Long getId() {
         return id;
@@ -70,6 +81,22 @@ public class InventoryItemDTO {
         this.itemCategoryId = itemCategoryId;
     }
 
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(Integer reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public double getTotalPrice() {
         return totalPrice;
     }
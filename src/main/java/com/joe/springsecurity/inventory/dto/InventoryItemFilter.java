@@ -0,0 +1,89 @@
+package com.joe.springsecurity.inventory.dto;
+
+import com.joe.springsecurity.inventory.enums.ItemType;
+
+/**
+ * Optional criteria for the inventory filter endpoint, bound from query parameters. Unset fields are ignored.
+ */
+public class InventoryItemFilter {
+
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minQuantity;
+    private Integer maxQuantity; // e.g. maxQuantity=5 for a low-stock view
+    private ItemType itemType;
+    private Long categoryId;
+    private String namePrefix;
+    private Boolean lowStock;
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getMinQuantity() {
+        return minQuantity;
+    }
+
+    public void setMinQuantity(Integer minQuantity) {
+        this.minQuantity = minQuantity;
+    }
+
+    public Integer getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public void setMaxQuantity(Integer maxQuantity) {
+        this.maxQuantity = maxQuantity;
+    }
+
+    public ItemType getItemType() {
+        return itemType;
+    }
+
+    public void setItemType(ItemType itemType) {
+        this.itemType = itemType;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public Boolean getLowStock() {
+        return lowStock;
+    }
+
+    public void setLowStock(Boolean lowStock) {
+        this.lowStock = lowStock;
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryItemFilter{minPrice=" + minPrice + ", maxPrice=" + maxPrice + ", minQuantity=" + minQuantity
+                + ", maxQuantity=" + maxQuantity + ", itemType=" + itemType + ", categoryId=" + categoryId
+                + ", namePrefix='" + namePrefix + "', lowStock=" + lowStock + "}";
+    }
+}
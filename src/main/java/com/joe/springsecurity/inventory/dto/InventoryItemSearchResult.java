@@ -0,0 +1,25 @@
+package com.joe.springsecurity.inventory.dto;
+
+/**
+ * Row of the native FULLTEXT search query; score is the MySQL relevance used for ordering.
+ */
+public interface InventoryItemSearchResult {
+
+    Long getId();
+
+    String getName();
+
+    int getQuantity();
+
+    double getPrice();
+
+    String getDescription();
+
+    Long getItemCategoryId();
+
+    Integer getReorderLevel();
+
+    Long getVersion();
+
+    double getScore();
+}
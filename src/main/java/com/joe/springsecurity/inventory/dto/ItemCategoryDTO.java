@@ -8,6 +8,7 @@ public class ItemCategoryDTO {
     private String name;
     private String description;
     private ItemType itemType;
+    private Integer reorderLevel;
 
     public ItemCategoryDTO() {
         // Default constructor
@@ -28,6 +29,12 @@ public class ItemCategoryDTO {
         this.description = description;
     }
 
+    // Full projection used by the listing queries
+    public ItemCategoryDTO(Long id, String name, ItemType itemType, String description, Integer reorderLevel) {
+        this(id, name, itemType, description);
+        this.reorderLevel = reorderLevel;
+    }
+
     @Override
     public String toString() {
         return "ItemCategoryDTO{id=" + id + ", name='" + name + "', description='" + description + "', itemType=" + itemType + "}";
@@ -59,6 +66,14 @@ public class ItemCategoryDTO {
         this.description = description;
     }
 
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(Integer reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
     public ItemType getItemType() {
         return itemType;
     }
@@ -0,0 +1,35 @@
+package com.joe.springsecurity.inventory.dto;
+
+import com.joe.springsecurity.inventory.enums.ItemType;
+
+// Immutable category facts cached by ItemCategoryCache for ownership checks on inventory writes
+public class ItemCategorySummary {
+
+    private final Long id;
+    private final Long companyId;
+    private final String name;
+    private final ItemType itemType;
+
+    public ItemCategorySummary(Long id, Long companyId, String name, ItemType itemType) {
+        this.id = id;
+        this.companyId = companyId;
+        this.name = name;
+        this.itemType = itemType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ItemType getItemType() {
+        return itemType;
+    }
+}
@@ -0,0 +1,21 @@
+package com.joe.springsecurity.inventory.dto;
+
+// Typeahead entry: just enough to show a name and open the item
+public class ItemSuggestionDTO {
+
+    private Long id;
+    private String name;
+
+    public ItemSuggestionDTO(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,48 @@
+package com.joe.springsecurity.inventory.dto;
+
+/**
+ * An item that has just dropped to or below its reorder level. Published as an application event by
+ * LowStockEvaluator and collected into the per-company digest after the write commits.
+ */
+public class LowStockAlertDTO {
+
+    private final Long itemId;
+    private final Long companyId;
+    private final String name;
+    private final int quantity;
+    private final Integer reorderLevel;
+
+    public LowStockAlertDTO(Long itemId, Long companyId, String name, int quantity, Integer reorderLevel) {
+        this.itemId = itemId;
+        this.companyId = companyId;
+        this.name = name;
+        this.quantity = quantity;
+        this.reorderLevel = reorderLevel;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    @Override
+    public String toString() {
+        return "LowStockAlertDTO{itemId=" + itemId + ", companyId=" + companyId + ", name='" + name
+                + "', quantity=" + quantity + ", reorderLevel=" + reorderLevel + "}";
+    }
+}
@@ -0,0 +1,25 @@
+package com.joe.springsecurity.inventory.dto;
+
+import javax.validation.constraints.NotNull;
+
+public class StockAdjustmentDTO {
+
+    // Signed change in quantity: positive to receive stock, negative to deduct (e.g. a sale)
+    @NotNull
+    private Integer delta;
+
+    public StockAdjustmentDTO() {
+    }
+
+    public StockAdjustmentDTO(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,8 @@
+package com.joe.springsecurity.inventory.enums;
+
+public enum MovementStatus {
+
+    PENDING,
+    APPLIED,
+    REJECTED;
+}
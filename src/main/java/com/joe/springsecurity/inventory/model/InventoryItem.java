@@ -1,6 +1,7 @@
 package com.joe.springsecurity.inventory.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.joe.springsecurity.company.model.Company;
 
 import javax.persistence.*;
@@ -14,7 +15,9 @@ import javax.validation.constraints.Size;
 public class InventoryItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "inventory_item_seq")
+    @TableGenerator(name = "inventory_item_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_inventory_item", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -29,6 +32,15 @@ public class InventoryItem {
 
     private String description;
 
+    // Overrides the category's reorder level when set
+    @Min(0)
+    private Integer reorderLevel;
+
+    // Maintained only by LowStockEvaluator's conditional UPDATEs
+    @Column(name = "low_stock", insertable = false, updatable = false)
+    @JsonIgnore
+    private boolean lowStock;
+
     // Marking total_price as transient so it's not persisted in the database
 //    @Transient
 //    private double totalPrice;
@@ -43,6 +55,11 @@ public class InventoryItem {
     @JsonBackReference  // Prevents infinite recursion by not serializing the back reference
     private ItemCategory itemCategory; // This will link to the ItemCategory
 
+    // Optimistic lock for full updates; stock adjustments bump it in their UPDATE. Not accepted from request bodies.
+    @Version
+    @JsonIgnore
+    private long version;
+
     public InventoryItem() {
     }
 
@@ -97,6 +114,18 @@ public class InventoryItem {
         this.description = description;
     }
 
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(Integer reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
+    public boolean isLowStock() {
+        return lowStock;
+    }
+
     public Company getCompany() {
         return company;
     }
@@ -113,6 +142,10 @@ public class InventoryItem {
         this.itemCategory = itemCategory;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     // This method calculates the total price dynamically based on quantity and price.
     public double getTotalPrice() {
         return quantity * price;
@@ -6,6 +6,7 @@ import com.joe.springsecurity.company.model.Company;
 import com.joe.springsecurity.inventory.enums.ItemType;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.HashSet;
@@ -16,7 +17,9 @@ import java.util.Set;
 public class ItemCategory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "item_categories_seq")
+    @TableGenerator(name = "item_categories_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_item_categories", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -29,6 +32,10 @@ public class ItemCategory {
     @Enumerated(EnumType.STRING)
     private ItemType itemType;
 
+    // Default reorder level for items in this category that do not set their own
+    @Min(0)
+    private Integer reorderLevel;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id")
     private Company company;
@@ -38,6 +45,9 @@ public class ItemCategory {
     @JsonManagedReference  // Prevents infinite recursion by serializing only the parent side
     private Set<InventoryItem> inventoryItems = new HashSet<>();
 
+    @Version
+    private long version;
+
 // Constructors, Getters, Setters, equals() and hashCode()
 
 
@@ -96,6 +106,14 @@ public void setItemType(ItemType itemType) {
     this.itemType = itemType;
 }
 
+public Integer getReorderLevel() {
+    return reorderLevel;
+}
+
+public void setReorderLevel(Integer reorderLevel) {
+    this.reorderLevel = reorderLevel;
+}
+
 public Company getCompany() {
     return company;
 }
@@ -112,4 +130,8 @@ public Set<InventoryItem> getInventoryItems() {
 public void setInventoryItems(Set<InventoryItem> inventoryItems) {
     this.inventoryItems = inventoryItems;
 }
-}
\ No newline at end of file
+
+public long getVersion() {
+    return version;
+}
+}
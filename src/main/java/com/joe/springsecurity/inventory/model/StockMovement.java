@@ -0,0 +1,83 @@
+package com.joe.springsecurity.inventory.model;
+
+import com.joe.springsecurity.inventory.enums.MovementStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One row per recorded stock change. Rows are only ever inserted and then moved from PENDING to
+ * APPLIED or REJECTED by the StockMovementCoalescer; on-hand quantity lives on InventoryItem.
+ */
+@Entity
+@Table(name = "cms_stock_movements")
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "stock_movements_seq")
+    @TableGenerator(name = "stock_movements_seq", table = "cms_id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "cms_stock_movements", allocationSize = 50)
+    private Long id;
+
+    // Plain ids: the ledger is written on the hot path and never navigated as a graph
+    @Column(nullable = false)
+    private Long inventoryItemId;
+
+    @Column(nullable = false)
+    private Long companyId;
+
+    private int delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MovementStatus status = MovementStatus.PENDING;
+
+    private String username;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime appliedAt;
+
+    public StockMovement() {
+    }
+
+    public StockMovement(Long inventoryItemId, Long companyId, int delta, String username) {
+        this.inventoryItemId = inventoryItemId;
+        this.companyId = companyId;
+        this.delta = delta;
+        this.username = username;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getInventoryItemId() {
+        return inventoryItemId;
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public MovementStatus getStatus() {
+        return status;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getAppliedAt() {
+        return appliedAt;
+    }
+}
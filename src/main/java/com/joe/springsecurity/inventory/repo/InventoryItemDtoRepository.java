@@ -0,0 +1,13 @@
+package com.joe.springsecurity.inventory.repo;
+
+import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
+import com.joe.springsecurity.inventory.model.InventoryItem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+// Specification queries that select InventoryItemDTO columns instead of loading entities
+public interface InventoryItemDtoRepository {
+
+    Page<InventoryItemDTO> findDtos(Specification<InventoryItem> spec, Pageable pageable);
+}
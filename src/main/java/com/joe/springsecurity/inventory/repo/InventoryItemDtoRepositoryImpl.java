@@ -0,0 +1,72 @@
+package com.joe.springsecurity.inventory.repo;
+
+import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
+import com.joe.springsecurity.inventory.model.InventoryItem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Runs a Specification as a constructor projection, like the JPQL listing queries in InventoryItemRepository:
+ * only the DTO columns are read and nothing enters the persistence context. itemCategory.id is read from the
+ * foreign key column, so the category is only joined when a predicate needs it. The sort always ends on id, so
+ * pages are stable when the sort column has duplicates; with the company filter that is the (company_id, x, id)
+ * order of the matching V4/V7/V8 index.
+ */
+class InventoryItemDtoRepositoryImpl implements InventoryItemDtoRepository {
+
+    private final EntityManager entityManager;
+
+    InventoryItemDtoRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<InventoryItemDTO> findDtos(Specification<InventoryItem> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<InventoryItemDTO> query = cb.createQuery(InventoryItemDTO.class);
+        Root<InventoryItem> root = query.from(InventoryItem.class);
+        query.select(cb.construct(InventoryItemDTO.class,
+                root.get("id"), root.get("name"), root.get("quantity"), root.get("price"),
+                root.get("description"), root.get("itemCategory").get("id"), root.get("reorderLevel"),
+                root.get("version")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        Sort sort = pageable.getSort().getOrderFor("id") == null ? pageable.getSort().and(Sort.by("id")) : pageable.getSort();
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<InventoryItemDTO> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<InventoryItemDTO> content = typedQuery.getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    private long count(Specification<InventoryItem> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<InventoryItem> root = query.from(InventoryItem.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -1,18 +1,28 @@
 package com.joe.springsecurity.inventory.repo;
 
 import com.joe.springsecurity.company.model.Company;
+import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
+import com.joe.springsecurity.inventory.dto.InventoryItemSearchResult;
+import com.joe.springsecurity.inventory.dto.ItemSuggestionDTO;
+import com.joe.springsecurity.inventory.dto.LowStockAlertDTO;
 import com.joe.springsecurity.inventory.model.InventoryItem;
 import com.joe.springsecurity.inventory.model.ItemCategory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
-public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long> {
+public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long>, JpaSpecificationExecutor<InventoryItem>,
+        InventoryItemDtoRepository {
 
 //    List<InventoryItem> findByCompany(Company company);
 
@@ -29,4 +39,92 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     // Custom method to find InventoryItems by Company and ItemCategory with pagination
     Page<InventoryItem> findByCompanyAndItemCategory(Company company, ItemCategory itemCategory, Pageable pageable);
 
+    // Read path for listings: selects only the DTO columns, so no entities or proxies end up in the persistence context.
+    // i.itemCategory.id is read from the foreign key column without joining cms_item_categories.
+    @Query(value = "SELECT new com.joe.springsecurity.inventory.dto.InventoryItemDTO(" +
+            "i.id, i.name, i.quantity, i.price, i.description, i.itemCategory.id, i.reorderLevel, i.version) " +
+            "FROM InventoryItem i WHERE i.company.id = :companyId",
+            countQuery = "SELECT COUNT(i) FROM InventoryItem i WHERE i.company.id = :companyId")
+    Page<InventoryItemDTO> findDtoByCompanyId(@Param("companyId") Long companyId, Pageable pageable);
+
+    @Query(value = "SELECT new com.joe.springsecurity.inventory.dto.InventoryItemDTO(" +
+            "i.id, i.name, i.quantity, i.price, i.description, i.itemCategory.id, i.reorderLevel, i.version) " +
+            "FROM InventoryItem i WHERE i.company.id = :companyId AND i.itemCategory.id = :categoryId",
+            countQuery = "SELECT COUNT(i) FROM InventoryItem i WHERE i.company.id = :companyId AND i.itemCategory.id = :categoryId")
+    Page<InventoryItemDTO> findDtoByCompanyIdAndCategoryId(@Param("companyId") Long companyId,
+                                                           @Param("categoryId") Long categoryId,
+                                                           Pageable pageable);
+
+    // Atomic stock change: one conditional UPDATE, no prior read and no row lock held beyond the statement's own.
+    // Returns 0 when the item is missing, belongs to another company or the result would go below zero.
+    @Modifying
+    @Query("UPDATE InventoryItem i SET i.quantity = i.quantity + :delta, i.version = i.version + 1 " +
+            "WHERE i.id = :id AND i.company.id = :companyId AND i.quantity + :delta >= 0")
+    int adjustQuantity(@Param("id") Long id, @Param("companyId") Long companyId, @Param("delta") int delta);
+
+    @Query("SELECT new com.joe.springsecurity.inventory.dto.InventoryItemDTO(" +
+            "i.id, i.name, i.quantity, i.price, i.description, i.itemCategory.id, i.reorderLevel, i.version) " +
+            "FROM InventoryItem i WHERE i.id = :id")
+    Optional<InventoryItemDTO> findDtoById(@Param("id") Long id);
+
+    @Query("SELECT i.company.id FROM InventoryItem i WHERE i.id = :id")
+    Optional<Long> findCompanyIdById(@Param("id") Long id);
+
+    // Low-stock crossing detection (LowStockEvaluator). The effective threshold is the item's reorder level,
+    // else its category's. Both statements are conditional on the current flag, so concurrent writers see
+    // exactly one 1 per crossing; they flush first so pending entity changes are evaluated.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE cms_inventory_item i LEFT JOIN cms_item_categories c ON c.id = i.item_category_id " +
+            "SET i.low_stock = TRUE " +
+            "WHERE i.id = :id AND i.low_stock = FALSE " +
+            "AND i.quantity <= COALESCE(i.reorder_level, c.reorder_level)", nativeQuery = true)
+    int markLowStock(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE cms_inventory_item i LEFT JOIN cms_item_categories c ON c.id = i.item_category_id " +
+            "SET i.low_stock = FALSE " +
+            "WHERE i.id = :id AND i.low_stock = TRUE " +
+            "AND (COALESCE(i.reorder_level, c.reorder_level) IS NULL " +
+            "OR i.quantity > COALESCE(i.reorder_level, c.reorder_level))", nativeQuery = true)
+    int clearLowStock(@Param("id") Long id);
+
+    // Items of one category whose low-stock flag no longer matches their quantity (category threshold changed)
+    @Query("SELECT i.id FROM InventoryItem i JOIN i.itemCategory c " +
+            "WHERE c.id = :categoryId AND i.reorderLevel IS NULL AND (" +
+            "(i.lowStock = false AND c.reorderLevel IS NOT NULL AND i.quantity <= c.reorderLevel) OR " +
+            "(i.lowStock = true AND (c.reorderLevel IS NULL OR i.quantity > c.reorderLevel)))")
+    List<Long> findLowStockMismatchIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT new com.joe.springsecurity.inventory.dto.LowStockAlertDTO(" +
+            "i.id, i.company.id, i.name, i.quantity, COALESCE(i.reorderLevel, c.reorderLevel)) " +
+            "FROM InventoryItem i LEFT JOIN i.itemCategory c WHERE i.id = :id")
+    Optional<LowStockAlertDTO> findLowStockAlertById(@Param("id") Long id);
+
+    // Ranked FULLTEXT search within one company; :query is a BOOLEAN MODE expression built by FullTextQuery
+    @Query(value = "SELECT i.id AS id, i.name AS name, i.quantity AS quantity, i.price AS price, " +
+            "i.description AS description, i.item_category_id AS itemCategoryId, i.reorder_level AS reorderLevel, " +
+            "i.version AS version, " +
+            "MATCH(i.name, i.description) AGAINST (:query IN BOOLEAN MODE) AS score " +
+            "FROM cms_inventory_item i " +
+            "WHERE i.company_id = :companyId AND MATCH(i.name, i.description) AGAINST (:query IN BOOLEAN MODE) " +
+            "ORDER BY score DESC, i.id",
+            countQuery = "SELECT COUNT(*) FROM cms_inventory_item i " +
+                    "WHERE i.company_id = :companyId AND MATCH(i.name, i.description) AGAINST (:query IN BOOLEAN MODE)",
+            nativeQuery = true)
+    Page<InventoryItemSearchResult> searchByCompanyId(@Param("companyId") Long companyId, @Param("query") String query,
+                                                      Pageable pageable);
+
+    // Name prefix match on idx_inventory_item_company_name, for terms too short for the FULLTEXT index
+    @Query(value = "SELECT new com.joe.springsecurity.inventory.dto.InventoryItemDTO(" +
+            "i.id, i.name, i.quantity, i.price, i.description, i.itemCategory.id, i.reorderLevel, i.version) " +
+            "FROM InventoryItem i WHERE i.company.id = :companyId AND i.name LIKE :prefix ESCAPE '!' ORDER BY i.name, i.id",
+            countQuery = "SELECT COUNT(i) FROM InventoryItem i WHERE i.company.id = :companyId AND i.name LIKE :prefix ESCAPE '!'")
+    Page<InventoryItemDTO> findDtoByCompanyIdAndNamePrefix(@Param("companyId") Long companyId, @Param("prefix") String prefix,
+                                                           Pageable pageable);
+
+    // Typeahead: bounded range scan on (company_id, name), no count query
+    @Query("SELECT new com.joe.springsecurity.inventory.dto.ItemSuggestionDTO(i.id, i.name) " +
+            "FROM InventoryItem i WHERE i.company.id = :companyId AND i.name LIKE :prefix ESCAPE '!' ORDER BY i.name")
+    List<ItemSuggestionDTO> findSuggestions(@Param("companyId") Long companyId, @Param("prefix") String prefix,
+                                            Pageable pageable);
 }
@@ -0,0 +1,86 @@
+package com.joe.springsecurity.inventory.repo;
+
+import com.joe.springsecurity.inventory.dto.InventoryItemFilter;
+import com.joe.springsecurity.inventory.enums.ItemType;
+import com.joe.springsecurity.inventory.model.InventoryItem;
+import com.joe.springsecurity.utils.FullTextQuery;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicates for InventoryItemRepository.findDtos(Specification, Pageable). Every predicate is combined with
+ * the company filter and has a matching (company_id, ...) index from V4, V7, V8 or V9, so each supported
+ * combination is an index range scan rather than a table scan.
+ */
+public final class InventoryItemSpecifications {
+
+    private InventoryItemSpecifications() {
+    }
+
+    public static Specification<InventoryItem> forCompany(Long companyId, InventoryItemFilter filter) {
+        Specification<InventoryItem> spec = Specification.where(belongsToCompany(companyId));
+        if (filter.getCategoryId() != null) {
+            spec = spec.and(inCategory(filter.getCategoryId()));
+        }
+        if (filter.getItemType() != null) {
+            spec = spec.and(hasItemType(filter.getItemType()));
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            spec = spec.and(priceBetween(filter.getMinPrice(), filter.getMaxPrice()));
+        }
+        if (filter.getMinQuantity() != null || filter.getMaxQuantity() != null) {
+            spec = spec.and(quantityBetween(filter.getMinQuantity(), filter.getMaxQuantity()));
+        }
+        if (filter.getNamePrefix() != null && !filter.getNamePrefix().trim().isEmpty()) {
+            spec = spec.and(nameStartsWith(filter.getNamePrefix()));
+        }
+        if (filter.getLowStock() != null) {
+            spec = spec.and(lowStock(filter.getLowStock()));
+        }
+        return spec;
+    }
+
+    // idx_inventory_item_company
+    public static Specification<InventoryItem> belongsToCompany(Long companyId) {
+        return (root, query, cb) -> cb.equal(root.get("company").get("id"), companyId);
+    }
+
+    // idx_inventory_item_company_category
+    public static Specification<InventoryItem> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("itemCategory").get("id"), categoryId);
+    }
+
+    // idx_item_categories_company_type picks the categories, then idx_inventory_item_company_category
+    public static Specification<InventoryItem> hasItemType(ItemType itemType) {
+        return (root, query, cb) -> cb.equal(root.join("itemCategory").get("itemType"), itemType);
+    }
+
+    // idx_inventory_item_company_price
+    public static Specification<InventoryItem> priceBetween(Double min, Double max) {
+        return (root, query, cb) -> {
+            if (min != null && max != null) {
+                return cb.between(root.<Double>get("price"), min, max);
+            }
+            return min != null ? cb.ge(root.<Double>get("price"), min) : cb.le(root.<Double>get("price"), max);
+        };
+    }
+
+    // idx_inventory_item_company_quantity
+    public static Specification<InventoryItem> quantityBetween(Integer min, Integer max) {
+        return (root, query, cb) -> {
+            if (min != null && max != null) {
+                return cb.between(root.<Integer>get("quantity"), min, max);
+            }
+            return min != null ? cb.ge(root.<Integer>get("quantity"), min) : cb.le(root.<Integer>get("quantity"), max);
+        };
+    }
+
+    // idx_inventory_item_company_name; the pattern is escaped with '!'
+    public static Specification<InventoryItem> nameStartsWith(String prefix) {
+        return (root, query, cb) -> cb.like(root.<String>get("name"), FullTextQuery.likePrefix(prefix), '!');
+    }
+
+    // idx_inventory_item_company_low_stock
+    public static Specification<InventoryItem> lowStock(boolean lowStock) {
+        return (root, query, cb) -> cb.equal(root.<Boolean>get("lowStock"), lowStock);
+    }
+}
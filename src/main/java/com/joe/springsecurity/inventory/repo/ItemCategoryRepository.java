@@ -1,11 +1,15 @@
 package com.joe.springsecurity.inventory.repo;
 
 import com.joe.springsecurity.company.model.Company;
+import com.joe.springsecurity.inventory.dto.ItemCategoryDTO;
+import com.joe.springsecurity.inventory.dto.ItemCategorySummary;
 import com.joe.springsecurity.inventory.enums.ItemType;
 import com.joe.springsecurity.inventory.model.ItemCategory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -20,4 +24,34 @@ public interface ItemCategoryRepository extends JpaRepository<ItemCategory, Long
     Optional<ItemCategory> findByCompanyAndName(Company company, String name);
 
     long countByCompany(Company company);
+
+    // Listing projection, see InventoryItemRepository.findDtoByCompanyId
+    @Query(value = "SELECT new com.joe.springsecurity.inventory.dto.ItemCategoryDTO(c.id, c.name, c.itemType, c.description, c.reorderLevel) " +
+            "FROM ItemCategory c WHERE c.company.id = :companyId",
+            countQuery = "SELECT COUNT(c) FROM ItemCategory c WHERE c.company.id = :companyId")
+    Page<ItemCategoryDTO> findDtoByCompanyId(@Param("companyId") Long companyId, Pageable pageable);
+
+    // Owning company of a category, for access checks that do not need the entity
+    @Query("SELECT c.company.id FROM ItemCategory c WHERE c.id = :id")
+    Optional<Long> findCompanyIdById(@Param("id") Long id);
+
+    // Cache fill for ItemCategoryCache; reads only the category row
+    @Query("SELECT new com.joe.springsecurity.inventory.dto.ItemCategorySummary(c.id, c.company.id, c.name, c.itemType) " +
+            "FROM ItemCategory c WHERE c.id = :id")
+    Optional<ItemCategorySummary> findSummaryById(@Param("id") Long id);
+
+    // Ranked FULLTEXT search on category names within one company
+    @Query(value = "SELECT c.* FROM cms_item_categories c " +
+            "WHERE c.company_id = :companyId AND MATCH(c.name) AGAINST (:query IN BOOLEAN MODE) " +
+            "ORDER BY MATCH(c.name) AGAINST (:query IN BOOLEAN MODE) DESC, c.id",
+            countQuery = "SELECT COUNT(*) FROM cms_item_categories c " +
+                    "WHERE c.company_id = :companyId AND MATCH(c.name) AGAINST (:query IN BOOLEAN MODE)",
+            nativeQuery = true)
+    Page<ItemCategory> searchByCompanyId(@Param("companyId") Long companyId, @Param("query") String query, Pageable pageable);
+
+    @Query(value = "SELECT new com.joe.springsecurity.inventory.dto.ItemCategoryDTO(c.id, c.name, c.itemType, c.description, c.reorderLevel) " +
+            "FROM ItemCategory c WHERE c.company.id = :companyId AND c.name LIKE :prefix ESCAPE '!' ORDER BY c.name, c.id",
+            countQuery = "SELECT COUNT(c) FROM ItemCategory c WHERE c.company.id = :companyId AND c.name LIKE :prefix ESCAPE '!'")
+    Page<ItemCategoryDTO> findDtoByCompanyIdAndNamePrefix(@Param("companyId") Long companyId, @Param("prefix") String prefix,
+                                                          Pageable pageable);
 }
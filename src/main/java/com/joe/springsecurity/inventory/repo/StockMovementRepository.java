@@ -0,0 +1,26 @@
+package com.joe.springsecurity.inventory.repo;
+
+import com.joe.springsecurity.inventory.enums.MovementStatus;
+import com.joe.springsecurity.inventory.model.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // Conditional status change; the count tells the caller whether it won every row it asked for
+    @Modifying
+    @Query("UPDATE StockMovement m SET m.status = :to, m.appliedAt = :now WHERE m.id IN :ids AND m.status = :from")
+    int transition(@Param("ids") Collection<Long> ids, @Param("from") MovementStatus from,
+                   @Param("to") MovementStatus to, @Param("now") LocalDateTime now);
+
+    // Movements left behind by a restart or a failed flush
+    List<StockMovement> findTop1000ByStatusAndCreatedAtBeforeOrderByIdAsc(MovementStatus status, LocalDateTime before);
+}
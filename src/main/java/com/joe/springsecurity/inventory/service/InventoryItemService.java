@@ -1,47 +1,84 @@
 package com.joe.springsecurity.inventory.service;
 
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
 import com.joe.springsecurity.auth.service.JwtService;
 import com.joe.springsecurity.auth.service.UserService;
 import com.joe.springsecurity.company.model.Company;
 import com.joe.springsecurity.errorhandling.UnauthorizedAccessException;
 import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
+import com.joe.springsecurity.inventory.dto.InventoryItemFilter;
+import com.joe.springsecurity.inventory.dto.ItemCategorySummary;
+import com.joe.springsecurity.inventory.dto.ItemSuggestionDTO;
+import com.joe.springsecurity.inventory.dto.StockAdjustmentDTO;
 import com.joe.springsecurity.inventory.model.InventoryItem;
 import com.joe.springsecurity.inventory.model.ItemCategory;
+import com.joe.springsecurity.inventory.model.StockMovement;
 import com.joe.springsecurity.inventory.repo.InventoryItemRepository;
+import com.joe.springsecurity.inventory.repo.InventoryItemSpecifications;
 import com.joe.springsecurity.inventory.repo.ItemCategoryRepository;
+import com.joe.springsecurity.inventory.repo.StockMovementRepository;
+import com.joe.springsecurity.utils.CollectionVersionService;
+import com.joe.springsecurity.utils.FullTextQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Set;
 
 @Service
 public class InventoryItemService {
     private static final Logger logger = LoggerFactory.getLogger(InventoryItemService.class);
 
+    // Stands for If-Match: *, which any existing item satisfies
+    public static final long ANY_VERSION = -1L;
+
+    // Sortable columns for the filter endpoint; each is the second column of a (company_id, ...) index
+    private static final Set<String> FILTER_SORT_PROPERTIES = Set.of("id", "name", "price", "quantity");
+
     private final InventoryItemRepository inventoryItemRepository;
     private final ItemCategoryRepository itemCategoryRepository;
     private final UserService userService;
     private final JwtService jwtService;
+    private final CollectionVersionService collectionVersionService;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockMovementCoalescer stockMovementCoalescer;
+    private final LowStockEvaluator lowStockEvaluator;
+    private final ItemCategoryCache itemCategoryCache;
 
     @Autowired
     public InventoryItemService(
             InventoryItemRepository inventoryItemRepository,
             ItemCategoryRepository itemCategoryRepository,
             UserService userService,
-            JwtService jwtService) {
+            JwtService jwtService,
+            CollectionVersionService collectionVersionService,
+            StockMovementRepository stockMovementRepository,
+            StockMovementCoalescer stockMovementCoalescer,
+            LowStockEvaluator lowStockEvaluator,
+            ItemCategoryCache itemCategoryCache) {
         this.inventoryItemRepository = inventoryItemRepository;
         this.itemCategoryRepository = itemCategoryRepository;
         this.userService = userService;
         this.jwtService = jwtService;
+        this.collectionVersionService = collectionVersionService;
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockMovementCoalescer = stockMovementCoalescer;
+        this.lowStockEvaluator = lowStockEvaluator;
+        this.itemCategoryCache = itemCategoryCache;
     }
 
     private Company validateCompanyContext() {
@@ -86,44 +123,117 @@ public class InventoryItemService {
         return userCompany;
     }
 
+    /**
+     * Checks the category's owner against the cached summary and returns an uninitialized reference,
+     * so assigning a category to an item reads nothing from cms_item_categories.
+     */
+    private ItemCategory resolveItemCategory(Long itemCategoryId, Company userCompany, String notOwnedMessage) {
+        ItemCategorySummary summary = itemCategoryCache.get(itemCategoryId)
+                .orElseThrow(() -> {
+                    logger.error("ItemCategory not found for ID: {}", itemCategoryId);
+                    return new ResponseStatusException(HttpStatus.BAD_REQUEST, "ItemCategory not found.");
+                });
+        if (!summary.getCompanyId().equals(userCompany.getId())) {
+            logger.error("ItemCategory company {} does not match user company {}", summary.getCompanyId(), userCompany.getId());
+            throw new UnauthorizedAccessException(notOwnedMessage);
+        }
+        return itemCategoryRepository.getReferenceById(itemCategoryId);
+    }
+
+    // Weak ETag for the current company's item listing; reads only the collection counter, never the items
+    @Transactional(readOnly = true)
+    public String getInventoryItemsETag() {
+        Company userCompany = validateCompanyContext();
+        return collectionVersionService.eTag(userCompany.getId(), CollectionVersionService.INVENTORY_ITEMS);
+    }
+
+    // Read-only transaction: Hibernate switches the session to FlushMode.MANUAL and skips dirty checking
+    @Transactional(readOnly = true)
     public Page<InventoryItemDTO> getAllInventoryItems(Pageable pageable) {
         logger.debug("Fetching all inventory items for page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
         Company userCompany = validateCompanyContext();
         try {
-            Page<InventoryItem> inventoryItems = inventoryItemRepository.findByCompany(userCompany, pageable);
+            Page<InventoryItemDTO> inventoryItems = inventoryItemRepository.findDtoByCompanyId(userCompany.getId(), pageable);
             logger.debug("Found {} inventory items for company ID: {}", inventoryItems.getTotalElements(), userCompany.getId());
-            return inventoryItems.map(item -> new InventoryItemDTO(
-                    item.getId(), item.getName(), item.getQuantity(),
-                    item.getPrice(), item.getDescription(), item.getItemCategory().getId()));
+            return inventoryItems;
         } catch (Exception e) {
             logger.error("Failed to fetch inventory items for company ID: {}", userCompany.getId(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching inventory items: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Lists the current company's items matching every criterion set on the filter, sorted by one of
+     * id, name, price or quantity (id breaks ties so paging is stable).
+     */
+    @Transactional(readOnly = true)
+    public Page<InventoryItemDTO> filterInventoryItems(InventoryItemFilter filter, Pageable pageable) {
+        logger.debug("Filtering inventory items with {}, page: {}, size: {}", filter, pageable.getPageNumber(), pageable.getPageSize());
+        for (Sort.Order order : pageable.getSort()) {
+            if (!FILTER_SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot sort by '" + order.getProperty() + "'.");
+            }
+        }
+        Company userCompany = validateCompanyContext();
+        // findDtos adds the id tiebreak to the sort
+        return inventoryItemRepository.findDtos(InventoryItemSpecifications.forCompany(userCompany.getId(), filter), pageable);
+    }
+
+    /**
+     * Ranked search over item name and description within the current company. Words shorter than the
+     * FULLTEXT minimum token length fall back to a name prefix match. Results are ordered by relevance,
+     * so any sort on the pageable is ignored.
+     */
+    @Transactional(readOnly = true)
+    public Page<InventoryItemDTO> searchInventoryItems(String query, Pageable pageable) {
+        logger.debug("Searching inventory items for '{}', page: {}, size: {}", query, pageable.getPageNumber(), pageable.getPageSize());
+        if (query == null || query.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be empty.");
+        }
+        Company userCompany = validateCompanyContext();
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+
+        String booleanQuery = FullTextQuery.toBooleanMode(query);
+        if (booleanQuery == null) {
+            return inventoryItemRepository.findDtoByCompanyIdAndNamePrefix(
+                    userCompany.getId(), FullTextQuery.likePrefix(query), unsorted);
+        }
+        return inventoryItemRepository.searchByCompanyId(userCompany.getId(), booleanQuery, unsorted)
+                .map(row -> new InventoryItemDTO(row.getId(), row.getName(), row.getQuantity(),
+                        row.getPrice(), row.getDescription(), row.getItemCategoryId(), row.getReorderLevel(),
+                        row.getVersion()));
+    }
+
+    // Name-prefix suggestions for typeahead, served from idx_inventory_item_company_name
+    @Transactional(readOnly = true)
+    public List<ItemSuggestionDTO> suggestInventoryItems(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return List.of();
+        }
+        Company userCompany = validateCompanyContext();
+        return inventoryItemRepository.findSuggestions(userCompany.getId(), FullTextQuery.likePrefix(prefix),
+                PageRequest.of(0, Math.max(1, Math.min(limit, 50))));
+    }
+
+    @Audited(action = ActionType.CREATE_ITEM, details = "Created a new inventory item.")
     @Transactional
     public InventoryItemDTO createInventoryItem(InventoryItem inventoryItem, Long itemCategoryId) {
         logger.debug("Creating inventory item with category ID: {}", itemCategoryId);
         Company userCompany = validateCompanyContext();
         inventoryItem.setCompany(userCompany);
 
-        ItemCategory itemCategory = itemCategoryRepository.findById(itemCategoryId)
-                .orElseThrow(() -> {
-                    logger.error("ItemCategory not found for ID: {}", itemCategoryId);
-                    return new ResponseStatusException(HttpStatus.BAD_REQUEST, "ItemCategory not found.");
-                });
-        if (!itemCategory.getCompany().equals(userCompany)) {
-            logger.error("ItemCategory company {} does not match user company {}", itemCategory.getCompany().getId(), userCompany.getId());
-            throw new UnauthorizedAccessException("ItemCategory does not belong to your company.");
-        }
-
-        inventoryItem.setItemCategory(itemCategory);
+        inventoryItem.setItemCategory(resolveItemCategory(itemCategoryId, userCompany, "ItemCategory does not belong to your company."));
         InventoryItem createdItem = inventoryItemRepository.save(inventoryItem);
+        lowStockEvaluator.evaluate(createdItem.getId());
+        collectionVersionService.bump(userCompany.getId(), CollectionVersionService.INVENTORY_ITEMS);
         logger.info("Inventory item created with ID: {}", createdItem.getId());
 
-        return new InventoryItemDTO(
+        InventoryItemDTO result = new InventoryItemDTO(
                 createdItem.getId(), createdItem.getName(), createdItem.getQuantity(),
                 createdItem.getPrice(), createdItem.getDescription(), createdItem.getItemCategory().getId());
+        result.setReorderLevel(createdItem.getReorderLevel());
+        result.setVersion(createdItem.getVersion());
+        return result;
     }
 
     public long getInventoryItemCount() {
@@ -144,14 +254,23 @@ public class InventoryItemService {
             logger.error("Inventory item company {} does not match user company {}", item.getCompany().getId(), userCompany.getId());
             throw new UnauthorizedAccessException("This inventory item does not belong to your company: " + userCompany.getName());
         }
-        return new InventoryItemDTO(
+        InventoryItemDTO result = new InventoryItemDTO(
                 item.getId(), item.getName(), item.getQuantity(),
                 item.getPrice(), item.getDescription(), item.getItemCategory().getId());
+        result.setReorderLevel(item.getReorderLevel());
+        result.setVersion(item.getVersion());
+        return result;
     }
 
+    @Audited(action = ActionType.UPDATE_ITEM, details = "Updated an inventory item.")
     @Transactional
-    public InventoryItemDTO updateInventoryItem(Long id, InventoryItem inventoryItem, Long itemCategoryId) {
-        logger.debug("Updating inventory item with ID: {}, category ID: {}", id, itemCategoryId);
+    public InventoryItemDTO updateInventoryItem(Long id, InventoryItem inventoryItem, Long itemCategoryId, Set<Long> expectedVersions) {
+        logger.debug("Updating inventory item with ID: {}, category ID: {}, expected versions: {}", id, itemCategoryId, expectedVersions);
+        // A full update overwrites quantity and price, so it must be based on what the client last read
+        if (expectedVersions == null) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+                    "Send the item's version in an If-Match header to update it.");
+        }
         Company userCompany = validateCompanyContext();
         InventoryItem existingItem = inventoryItemRepository.findById(id)
                 .orElseThrow(() -> {
@@ -162,30 +281,108 @@ public class InventoryItemService {
             logger.error("Inventory item company {} does not match user company {}", existingItem.getCompany().getId(), userCompany.getId());
             throw new UnauthorizedAccessException("This inventory item does not belong to your company: " + userCompany.getName());
         }
-
-        ItemCategory itemCategory = itemCategoryRepository.findById(itemCategoryId)
-                .orElseThrow(() -> {
-                    logger.error("ItemCategory not found for ID: {}", itemCategoryId);
-                    return new ResponseStatusException(HttpStatus.BAD_REQUEST, "ItemCategory not found.");
-                });
-        if (!itemCategory.getCompany().equals(userCompany)) {
-            logger.error("ItemCategory company {} does not match user company {}", itemCategory.getCompany().getId(), userCompany.getId());
-            throw new UnauthorizedAccessException("ItemCategory does not belong to your company: " + userCompany.getName());
+        if (!expectedVersions.contains(ANY_VERSION) && !expectedVersions.contains(existingItem.getVersion())) {
+            logger.warn("Stale update of inventory item ID: {}, expected versions {} but found {}", id, expectedVersions, existingItem.getVersion());
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "The inventory item was modified since it was read, reload and try again.");
         }
 
+        ItemCategory itemCategory = resolveItemCategory(itemCategoryId, userCompany,
+                "ItemCategory does not belong to your company: " + userCompany.getName());
+
         existingItem.setName(inventoryItem.getName());
         existingItem.setQuantity(inventoryItem.getQuantity());
         existingItem.setPrice(inventoryItem.getPrice());
         existingItem.setDescription(inventoryItem.getDescription());
+        existingItem.setReorderLevel(inventoryItem.getReorderLevel());
         existingItem.setItemCategory(itemCategory);
 
-        InventoryItem updatedItem = inventoryItemRepository.save(existingItem);
+        // Flushed here so the returned version is the one the next If-Match must carry
+        InventoryItem updatedItem = inventoryItemRepository.saveAndFlush(existingItem);
+        lowStockEvaluator.evaluate(updatedItem.getId());
+        collectionVersionService.bump(userCompany.getId(), CollectionVersionService.INVENTORY_ITEMS);
         logger.info("Inventory item updated with ID: {}", updatedItem.getId());
-        return new InventoryItemDTO(
+        InventoryItemDTO result = new InventoryItemDTO(
                 updatedItem.getId(), updatedItem.getName(), updatedItem.getQuantity(),
                 updatedItem.getPrice(), updatedItem.getDescription(), updatedItem.getItemCategory().getId());
+        result.setReorderLevel(updatedItem.getReorderLevel());
+        result.setVersion(updatedItem.getVersion());
+        return result;
+    }
+
+    /**
+     * Changes stock by a signed delta in a single conditional UPDATE, so concurrent point-of-sale
+     * deductions neither lose writes nor need a read lock or retry.
+     */
+    @Audited(action = ActionType.ADJUST_STOCK, details = "Adjusted stock of an inventory item.", sampleRate = 0.1)
+    @Transactional
+    public InventoryItemDTO adjustStock(Long id, StockAdjustmentDTO adjustment) {
+        int delta = adjustment.getDelta();
+        logger.debug("Adjusting stock of inventory item ID: {} by {}", id, delta);
+        if (delta == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock adjustment delta must not be zero.");
+        }
+        Company userCompany = validateCompanyContext();
+
+        if (inventoryItemRepository.adjustQuantity(id, userCompany.getId(), delta) == 0) {
+            // Nothing matched: work out why without having locked anything
+            Long itemCompanyId = inventoryItemRepository.findCompanyIdById(id)
+                    .orElseThrow(() -> {
+                        logger.error("Inventory item not found for ID: {}", id);
+                        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Inventory item not found.");
+                    });
+            if (!itemCompanyId.equals(userCompany.getId())) {
+                logger.error("Inventory item company {} does not match user company {}", itemCompanyId, userCompany.getId());
+                throw new UnauthorizedAccessException("This inventory item does not belong to your company: " + userCompany.getName());
+            }
+            logger.warn("Insufficient stock for inventory item ID: {} (delta {})", id, delta);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock for this adjustment.");
+        }
+        lowStockEvaluator.evaluate(id);
+        collectionVersionService.bump(userCompany.getId(), CollectionVersionService.INVENTORY_ITEMS);
+
+        InventoryItemDTO adjusted = inventoryItemRepository.findDtoById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Inventory item not found."));
+        logger.info("Stock of inventory item ID: {} adjusted by {} to {}", id, delta, adjusted.getQuantity());
+        return adjusted;
+    }
+
+    /**
+     * Records a stock movement in the ledger and queues it for the coalescer; the item's quantity is
+     * updated on the next flush. Use adjustStock when the caller needs the new quantity immediately.
+     */
+    @Audited(action = ActionType.RECORD_STOCK_MOVEMENT, details = "Recorded a stock movement.", sampleRate = 0.1)
+    @Transactional
+    public StockMovement recordStockMovement(Long id, StockAdjustmentDTO adjustment) {
+        int delta = adjustment.getDelta();
+        logger.debug("Recording stock movement for inventory item ID: {} of {}", id, delta);
+        if (delta == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stock movement delta must not be zero.");
+        }
+        Company userCompany = validateCompanyContext();
+        Long itemCompanyId = inventoryItemRepository.findCompanyIdById(id)
+                .orElseThrow(() -> {
+                    logger.error("Inventory item not found for ID: {}", id);
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Inventory item not found.");
+                });
+        if (!itemCompanyId.equals(userCompany.getId())) {
+            logger.error("Inventory item company {} does not match user company {}", itemCompanyId, userCompany.getId());
+            throw new UnauthorizedAccessException("This inventory item does not belong to your company: " + userCompany.getName());
+        }
+
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        StockMovement movement = stockMovementRepository.save(new StockMovement(id, userCompany.getId(), delta, username));
+        // Queue only once the ledger row is committed, so a flush can always find and claim it
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stockMovementCoalescer.enqueue(movement.getId(), id, userCompany.getId(), delta);
+            }
+        });
+        return movement;
     }
 
+    @Audited(action = ActionType.DELETE_ITEM, details = "Deleted an inventory item.")
     @Transactional
     public boolean deleteInventoryItem(Long id) {
         logger.debug("Deleting inventory item with ID: {}", id);
@@ -200,28 +397,30 @@ public class InventoryItemService {
             throw new UnauthorizedAccessException("This inventory item does not belong to your company: " + userCompany.getName());
         }
         inventoryItemRepository.deleteById(id);
+        collectionVersionService.bump(userCompany.getId(), CollectionVersionService.INVENTORY_ITEMS);
         logger.info("Inventory item deleted with ID: {}", id);
         return true;
     }
 
+    @Transactional(readOnly = true)
     public Page<InventoryItemDTO> getInventoryItemsByCategory(Long categoryId, Pageable pageable) {
         logger.debug("Fetching inventory items by category ID: {}, page: {}, size: {}", categoryId, pageable.getPageNumber(), pageable.getPageSize());
         Company userCompany = validateCompanyContext();
-        ItemCategory itemCategory = itemCategoryRepository.findById(categoryId)
+        Long categoryCompanyId = itemCategoryCache.get(categoryId)
+                .map(ItemCategorySummary::getCompanyId)
                 .orElseThrow(() -> {
                     logger.error("ItemCategory not found for ID: {}", categoryId);
                     return new ResponseStatusException(HttpStatus.NOT_FOUND, "ItemCategory not found.");
                 });
-        if (!itemCategory.getCompany().equals(userCompany)) {
-            logger.error("ItemCategory company {} does not match user company {}", itemCategory.getCompany().getId(), userCompany.getId());
+        if (!categoryCompanyId.equals(userCompany.getId())) {
+            logger.error("ItemCategory company {} does not match user company {}", categoryCompanyId, userCompany.getId());
             throw new UnauthorizedAccessException("ItemCategory does not belong to your company: " + userCompany.getName());
         }
 
-        Page<InventoryItem> inventoryItems = inventoryItemRepository.findByCompanyAndItemCategory(userCompany, itemCategory, pageable);
+        Page<InventoryItemDTO> inventoryItems = inventoryItemRepository.findDtoByCompanyIdAndCategoryId(
+                userCompany.getId(), categoryId, pageable);
         logger.debug("Found {} inventory items for category ID: {}", inventoryItems.getTotalElements(), categoryId);
-        return inventoryItems.map(item -> new InventoryItemDTO(
-                item.getId(), item.getName(), item.getQuantity(),
-                item.getPrice(), item.getDescription(), item.getItemCategory().getId()));
+        return inventoryItems;
     }
 }
 
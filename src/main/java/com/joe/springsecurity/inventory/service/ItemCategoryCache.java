@@ -0,0 +1,132 @@
+package com.joe.springsecurity.inventory.service;
+
+import com.joe.springsecurity.cache.InvalidationBus;
+import com.joe.springsecurity.inventory.dto.ItemCategorySummary;
+import com.joe.springsecurity.inventory.repo.ItemCategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache-aside map of category id to (companyId, name, itemType), partitioned by company so one tenant's
+ * categories can be dropped at once and a partition never grows past app.cache.item-categories.max-per-company.
+ * Inventory writes use it for the category ownership check, so they run no category query once it is warm.
+ *
+ * ItemCategoryService evicts on every category write. The entry is dropped immediately and the eviction is
+ * published on the InvalidationBus, which repeats it here after commit (so a reader that loaded the old row
+ * while the write was in flight cannot leave it cached) and on the other nodes. A company event drops the
+ * company's whole partition.
+ */
+@Component
+public class ItemCategoryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemCategoryCache.class);
+
+    private final Map<Long, Map<Long, ItemCategorySummary>> byCompany = new ConcurrentHashMap<>();
+    // Category id -> owning company, so a lookup by id alone finds its partition
+    private final Map<Long, Long> owners = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final ItemCategoryRepository itemCategoryRepository;
+    private final int maxPerCompany;
+
+    private final InvalidationBus invalidationBus;
+
+    public ItemCategoryCache(ItemCategoryRepository itemCategoryRepository,
+                             InvalidationBus invalidationBus,
+                             @Value("${app.cache.item-categories.max-per-company:1000}") int maxPerCompany) {
+        this.itemCategoryRepository = itemCategoryRepository;
+        this.invalidationBus = invalidationBus;
+        this.maxPerCompany = maxPerCompany;
+        invalidationBus.subscribe(InvalidationBus.ITEM_CATEGORIES, this::onCategoryInvalidated);
+        invalidationBus.subscribe(InvalidationBus.COMPANIES, this::onCompanyInvalidated);
+    }
+
+    public Optional<ItemCategorySummary> get(Long categoryId) {
+        Long companyId = owners.get(categoryId);
+        if (companyId != null) {
+            ItemCategorySummary cached = byCompany.getOrDefault(companyId, Map.of()).get(categoryId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return Optional.of(cached);
+            }
+        }
+        misses.incrementAndGet();
+        // Misses are not cached: an unknown id may be created later under any company
+        Optional<ItemCategorySummary> loaded = itemCategoryRepository.findSummaryById(categoryId);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    public void evict(Collection<Long> categoryIds) {
+        for (Long categoryId : categoryIds) {
+            evictNow(categoryId);
+            invalidationBus.publish(InvalidationBus.ITEM_CATEGORIES, String.valueOf(categoryId));
+        }
+    }
+
+    public void evictCompany(Long companyId) {
+        Map<Long, ItemCategorySummary> partition = byCompany.remove(companyId);
+        if (partition != null) {
+            partition.keySet().forEach(owners::remove);
+            evictions.addAndGet(partition.size());
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("companies", byCompany.size());
+        metrics.put("entries", owners.size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+    private void put(ItemCategorySummary summary) {
+        Map<Long, ItemCategorySummary> partition = byCompany.computeIfAbsent(summary.getCompanyId(), id -> new ConcurrentHashMap<>());
+        if (partition.size() >= maxPerCompany) {
+            logger.debug("Category cache for company ID: {} is full; clearing it", summary.getCompanyId());
+            evictCompany(summary.getCompanyId());
+            partition = byCompany.computeIfAbsent(summary.getCompanyId(), id -> new ConcurrentHashMap<>());
+        }
+        partition.put(summary.getId(), summary);
+        owners.put(summary.getId(), summary.getCompanyId());
+    }
+
+    private void evictNow(Long categoryId) {
+        Long companyId = owners.remove(categoryId);
+        Map<Long, ItemCategorySummary> partition = companyId != null ? byCompany.get(companyId) : null;
+        if (partition != null && partition.remove(categoryId) != null) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void onCategoryInvalidated(String key) {
+        if (InvalidationBus.ALL_KEYS.equals(key)) {
+            new ArrayList<>(byCompany.keySet()).forEach(this::evictCompany);
+        } else {
+            evictNow(Long.valueOf(key));
+        }
+    }
+
+    private void onCompanyInvalidated(String key) {
+        if (InvalidationBus.ALL_KEYS.equals(key)) {
+            new ArrayList<>(byCompany.keySet()).forEach(this::evictCompany);
+        } else {
+            evictCompany(Long.valueOf(key));
+        }
+    }
+}
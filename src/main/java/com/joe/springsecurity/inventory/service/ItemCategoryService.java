@@ -1,5 +1,7 @@
 package com.joe.springsecurity.inventory.service;
 
+import com.joe.springsecurity.audit.annotation.Audited;
+import com.joe.springsecurity.audit.model.ActionType;
 import com.joe.springsecurity.auth.service.JwtService;
 import com.joe.springsecurity.auth.service.UserService;
 import com.joe.springsecurity.company.model.Company;
@@ -7,11 +9,14 @@ import com.joe.springsecurity.errorhandling.UnauthorizedAccessException;
 import com.joe.springsecurity.inventory.dto.ItemCategoryDTO;
 import com.joe.springsecurity.inventory.model.ItemCategory;
 import com.joe.springsecurity.inventory.repo.ItemCategoryRepository;
+import com.joe.springsecurity.utils.CollectionVersionService;
+import com.joe.springsecurity.utils.FullTextQuery;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -22,6 +27,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -32,15 +38,24 @@ public class ItemCategoryService {
     private final ItemCategoryRepository itemCategoryRepository;
     private final UserService userService;
     private final JwtService jwtService;
+    private final CollectionVersionService collectionVersionService;
+    private final LowStockEvaluator lowStockEvaluator;
+    private final ItemCategoryCache itemCategoryCache;
 
     @Autowired
     public ItemCategoryService(
             ItemCategoryRepository itemCategoryRepository,
             UserService userService,
-            JwtService jwtService) {
+            JwtService jwtService,
+            CollectionVersionService collectionVersionService,
+            LowStockEvaluator lowStockEvaluator,
+            ItemCategoryCache itemCategoryCache) {
         this.itemCategoryRepository = itemCategoryRepository;
         this.userService = userService;
         this.jwtService = jwtService;
+        this.collectionVersionService = collectionVersionService;
+        this.lowStockEvaluator = lowStockEvaluator;
+        this.itemCategoryCache = itemCategoryCache;
     }
 
     /**
@@ -95,6 +110,7 @@ public class ItemCategoryService {
      * @param itemCategoryDTO DTO containing the new category details.
      * @return DTO of the created ItemCategory.
      */
+    @Audited(action = ActionType.CREATE_CATEGORY, details = "Created a new item category.")
     @Transactional
     public ItemCategoryDTO createItemCategory(@Valid ItemCategoryDTO itemCategoryDTO) {
         logger.debug("Creating item category with name: {}", itemCategoryDTO.getName());
@@ -115,15 +131,20 @@ public class ItemCategoryService {
                     itemCategoryDTO.getItemType(),
                     userCompany
             );
+            itemCategory.setReorderLevel(itemCategoryDTO.getReorderLevel());
             ItemCategory createdItemCategory = itemCategoryRepository.save(itemCategory);
+            itemCategoryCache.evict(List.of(createdItemCategory.getId()));
+            collectionVersionService.bump(userCompany.getId(), CollectionVersionService.ITEM_CATEGORIES);
             logger.info("Item category created with ID: {}", createdItemCategory.getId());
 
-            return new ItemCategoryDTO(
+            ItemCategoryDTO result = new ItemCategoryDTO(
                     createdItemCategory.getId(),
                     createdItemCategory.getName(),
                     createdItemCategory.getItemType(),
                     createdItemCategory.getDescription()
             );
+            result.setReorderLevel(createdItemCategory.getReorderLevel());
+            return result;
         } catch (Exception e) {
             logger.error("Failed to create item category for company ID: {}", userCompany.getId(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -131,26 +152,32 @@ public class ItemCategoryService {
         }
     }
 
+    /**
+     * Weak ETag for the current company's category listing, taken from the collection version counter.
+     * @return Quoted ETag value.
+     */
+    @Transactional(readOnly = true)
+    public String getItemCategoriesETag() {
+        Company userCompany = validateCompanyContext();
+        return collectionVersionService.eTag(userCompany.getId(), CollectionVersionService.ITEM_CATEGORIES);
+    }
+
     /**
      * Fetches all ItemCategories for the current company.
      * @param pageable Pagination details.
      * @return Page of ItemCategoryDTOs.
      */
+    @Transactional(readOnly = true)
     public Page<ItemCategoryDTO> getAllItemCategories(Pageable pageable) {
         logger.debug("Fetching all item categories for page: {}, size: {}",
                 pageable.getPageNumber(), pageable.getPageSize());
         Company userCompany = validateCompanyContext();
 
         try {
-            Page<ItemCategory> itemCategories = itemCategoryRepository.findByCompany(userCompany, pageable);
+            Page<ItemCategoryDTO> itemCategories = itemCategoryRepository.findDtoByCompanyId(userCompany.getId(), pageable);
             logger.debug("Found {} item categories for company ID: {}",
                     itemCategories.getTotalElements(), userCompany.getId());
-            return itemCategories.map(itemCategory -> new ItemCategoryDTO(
-                    itemCategory.getId(),
-                    itemCategory.getName(),
-                    itemCategory.getItemType(),
-                    itemCategory.getDescription()
-            ));
+            return itemCategories;
         } catch (Exception e) {
             logger.error("Failed to fetch item categories for company ID: {}", userCompany.getId(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -158,6 +185,36 @@ public class ItemCategoryService {
         }
     }
 
+    /**
+     * Ranked search over category names within the current company, with a prefix fallback for short words.
+     * @param query Free-text search input.
+     * @param pageable Pagination details; results are ordered by relevance.
+     * @return Page of matching ItemCategoryDTOs.
+     */
+    @Transactional(readOnly = true)
+    public Page<ItemCategoryDTO> searchItemCategories(String query, Pageable pageable) {
+        logger.debug("Searching item categories for '{}'", query);
+        if (query == null || query.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be empty.");
+        }
+        Company userCompany = validateCompanyContext();
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+
+        String booleanQuery = FullTextQuery.toBooleanMode(query);
+        if (booleanQuery == null) {
+            return itemCategoryRepository.findDtoByCompanyIdAndNamePrefix(
+                    userCompany.getId(), FullTextQuery.likePrefix(query), unsorted);
+        }
+        return itemCategoryRepository.searchByCompanyId(userCompany.getId(), booleanQuery, unsorted)
+                .map(itemCategory -> new ItemCategoryDTO(
+                        itemCategory.getId(),
+                        itemCategory.getName(),
+                        itemCategory.getItemType(),
+                        itemCategory.getDescription(),
+                        itemCategory.getReorderLevel()
+                ));
+    }
+
     /**
      * Fetches an ItemCategory by ID.
      * @param id The ID of the ItemCategory.
@@ -179,12 +236,14 @@ public class ItemCategoryService {
             throw new UnauthorizedAccessException("This item category does not belong to your company.");
         }
 
-        return new ItemCategoryDTO(
+        ItemCategoryDTO result = new ItemCategoryDTO(
                 itemCategory.getId(),
                 itemCategory.getName(),
                 itemCategory.getItemType(),
                 itemCategory.getDescription()
         );
+        result.setReorderLevel(itemCategory.getReorderLevel());
+        return result;
     }
 
     /**
@@ -193,6 +252,7 @@ public class ItemCategoryService {
      * @param itemCategoryDTO DTO with updated details.
      * @return DTO of the updated ItemCategory.
      */
+    @Audited(action = ActionType.UPDATE_CATEGORY, details = "Updated an item category.")
     @Transactional
     public ItemCategoryDTO updateItemCategory(Long id, @Valid ItemCategoryDTO itemCategoryDTO) {
         logger.debug("Updating item category with ID: {}", id);
@@ -223,16 +283,25 @@ public class ItemCategoryService {
         existingItemCategory.setName(itemCategoryDTO.getName());
         existingItemCategory.setDescription(itemCategoryDTO.getDescription());
         existingItemCategory.setItemType(itemCategoryDTO.getItemType());
+        boolean reorderLevelChanged = !Objects.equals(existingItemCategory.getReorderLevel(), itemCategoryDTO.getReorderLevel());
+        existingItemCategory.setReorderLevel(itemCategoryDTO.getReorderLevel());
 
         try {
             ItemCategory updatedItemCategory = itemCategoryRepository.save(existingItemCategory);
+            itemCategoryCache.evict(List.of(id));
+            if (reorderLevelChanged) {
+                lowStockEvaluator.evaluateCategory(updatedItemCategory.getId());
+            }
+            collectionVersionService.bump(userCompany.getId(), CollectionVersionService.ITEM_CATEGORIES);
             logger.info("Item category updated with ID: {}", updatedItemCategory.getId());
-            return new ItemCategoryDTO(
+            ItemCategoryDTO result = new ItemCategoryDTO(
                     updatedItemCategory.getId(),
                     updatedItemCategory.getName(),
                     updatedItemCategory.getItemType(),
                     updatedItemCategory.getDescription()
             );
+            result.setReorderLevel(updatedItemCategory.getReorderLevel());
+            return result;
         } catch (Exception e) {
             logger.error("Failed to update item category ID: {} for company ID: {}", id, userCompany.getId(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -245,6 +314,7 @@ public class ItemCategoryService {
      * @param id The ID of the ItemCategory to delete.
      * @return True if deleted successfully.
      */
+    @Audited(action = ActionType.DELETE_CATEGORY, details = "Deleted an item category.")
     @Transactional
     public boolean deleteItemCategory(Long id) {
         logger.debug("Deleting item category with ID: {}", id);
@@ -263,6 +333,8 @@ public class ItemCategoryService {
         }
 
         itemCategoryRepository.deleteById(id);
+        itemCategoryCache.evict(List.of(id));
+        collectionVersionService.bump(userCompany.getId(), CollectionVersionService.ITEM_CATEGORIES);
         logger.info("Item category deleted with ID: {}", id);
         return true;
     }
@@ -272,6 +344,7 @@ public class ItemCategoryService {
      * @param itemCategoryDTOs List of DTOs for creating ItemCategories.
      * @return List of created ItemCategoryDTOs.
      */
+    @Audited(action = ActionType.BATCH_CREATE_CATEGORIES, details = "Batch created item categories.")
     @Transactional
     public List<ItemCategoryDTO> batchCreateItemCategories(@Valid List<ItemCategoryDTO> itemCategoryDTOs) {
         logger.debug("Batch creating {} item categories", itemCategoryDTOs.size());
@@ -289,15 +362,22 @@ public class ItemCategoryService {
 
         try {
             List<ItemCategory> itemCategories = itemCategoryDTOs.stream()
-                    .map(dto -> new ItemCategory(
-                            dto.getName(),
-                            dto.getDescription(),
-                            dto.getItemType(),
-                            userCompany
-                    ))
+                    .map(dto -> {
+                        ItemCategory itemCategory = new ItemCategory(
+                                dto.getName(),
+                                dto.getDescription(),
+                                dto.getItemType(),
+                                userCompany
+                        );
+                        itemCategory.setReorderLevel(dto.getReorderLevel());
+                        return itemCategory;
+                    })
                     .collect(Collectors.toList());
 
             List<ItemCategory> createdItemCategories = itemCategoryRepository.saveAll(itemCategories);
+            itemCategoryCache.evict(createdItemCategories.stream()
+                    .map(ItemCategory::getId).collect(Collectors.toList()));
+            collectionVersionService.bump(userCompany.getId(), CollectionVersionService.ITEM_CATEGORIES);
             logger.info("Batch created {} item categories for company ID: {}",
                     createdItemCategories.size(), userCompany.getId());
 
@@ -306,7 +386,8 @@ public class ItemCategoryService {
                             itemCategory.getId(),
                             itemCategory.getName(),
                             itemCategory.getItemType(),
-                            itemCategory.getDescription()
+                            itemCategory.getDescription(),
+                            itemCategory.getReorderLevel()
                     ))
                     .collect(Collectors.toList());
         } catch (Exception e) {
@@ -320,6 +401,7 @@ public class ItemCategoryService {
      * Batch deletes multiple ItemCategories by IDs.
      * @param ids List of ItemCategory IDs to delete.
      */
+    @Audited(action = ActionType.BATCH_DELETE_CATEGORIES, details = "Batch deleted item categories.")
     @Transactional
     public void batchDeleteItemCategories(List<Long> ids) {
         logger.debug("Batch deleting {} item categories", ids.size());
@@ -340,6 +422,9 @@ public class ItemCategoryService {
         }
 
         itemCategoryRepository.deleteAll(itemCategories);
+        itemCategoryCache.evict(itemCategories.stream()
+                .map(ItemCategory::getId).collect(Collectors.toList()));
+        collectionVersionService.bump(userCompany.getId(), CollectionVersionService.ITEM_CATEGORIES);
         logger.info("Batch deleted {} item categories for company ID: {}", itemCategories.size(), userCompany.getId());
     }
 }
@@ -0,0 +1,100 @@
+package com.joe.springsecurity.inventory.service;
+
+import com.joe.springsecurity.company.repo.CompanyRepository;
+import com.joe.springsecurity.inventory.dto.LowStockAlertDTO;
+import com.joe.springsecurity.utils.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.mail.MessagingException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects committed low-stock alerts per company and mails each company one digest per interval
+ * (app.alerts.low-stock.digest-interval-ms) to its primary email. An item that re-alerts within the same
+ * interval is listed once, with its latest quantity. Pending alerts are in memory only; the low_stock flag
+ * in the database remains the source of truth and can be listed with /api/v2/inventoryitem/filter?lowStock=true.
+ */
+@Component
+public class LowStockAlertDigest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockAlertDigest.class);
+
+    private final Map<Long, Map<Long, LowStockAlertDTO>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong alertsReceived = new AtomicLong();
+    private final AtomicLong alertsMerged = new AtomicLong();
+    private final AtomicLong digestsSent = new AtomicLong();
+
+    private final CompanyRepository companyRepository;
+    private final EmailService emailService;
+
+    public LowStockAlertDigest(CompanyRepository companyRepository, EmailService emailService) {
+        this.companyRepository = companyRepository;
+        this.emailService = emailService;
+    }
+
+    @TransactionalEventListener
+    public void onLowStock(LowStockAlertDTO alert) {
+        alertsReceived.incrementAndGet();
+        pending.compute(alert.getCompanyId(), (companyId, alerts) -> {
+            Map<Long, LowStockAlertDTO> merged = alerts != null ? alerts : new LinkedHashMap<>();
+            if (merged.put(alert.getItemId(), alert) != null) {
+                alertsMerged.incrementAndGet();
+            }
+            return merged;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.alerts.low-stock.digest-interval-ms:900000}")
+    public void flush() {
+        for (Long companyId : new ArrayList<>(pending.keySet())) {
+            // remove() hands this thread the company's batch; later alerts start a new one
+            Map<Long, LowStockAlertDTO> alerts = pending.remove(companyId);
+            if (alerts == null || alerts.isEmpty()) {
+                continue;
+            }
+            try {
+                send(companyId, alerts);
+            } catch (Exception e) {
+                logger.error("Failed to send low-stock digest of {} items for company ID: {}", alerts.size(), companyId, e);
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("alertsReceived", alertsReceived.get());
+        metrics.put("alertsMerged", alertsMerged.get());
+        metrics.put("pendingCompanies", pending.size());
+        metrics.put("digestsSent", digestsSent.get());
+        return metrics;
+    }
+
+    private void send(Long companyId, Map<Long, LowStockAlertDTO> alerts) throws MessagingException {
+        Optional<String> recipient = companyRepository.findPrimaryEmailById(companyId)
+                .filter(email -> !email.trim().isEmpty());
+        if (recipient.isEmpty()) {
+            logger.warn("Company ID: {} has no primary email; dropping low-stock digest of {} items", companyId, alerts.size());
+            return;
+        }
+
+        StringBuilder text = new StringBuilder("The following items are at or below their reorder level:\n\n");
+        for (LowStockAlertDTO alert : alerts.values()) {
+            text.append("- ").append(alert.getName())
+                    .append(": ").append(alert.getQuantity())
+                    .append(" in stock (reorder level ").append(alert.getReorderLevel()).append(")\n");
+        }
+        emailService.sendEmail(recipient.get(), "Low stock: " + alerts.size() + " item(s) need reordering", text.toString());
+        digestsSent.incrementAndGet();
+        logger.info("Queued low-stock digest of {} items for company ID: {}", alerts.size(), companyId);
+    }
+}
@@ -0,0 +1,55 @@
+package com.joe.springsecurity.inventory.service;
+
+import com.joe.springsecurity.inventory.dto.LowStockAlertDTO;
+import com.joe.springsecurity.inventory.repo.InventoryItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Re-checks an item's reorder threshold right after a write touches its quantity or threshold, instead of
+ * scanning the table on a schedule. The low_stock flag is flipped with conditional UPDATEs, so only the
+ * write that actually crosses the threshold publishes a LowStockAlertDTO; further sales below the threshold
+ * stay quiet until the item is restocked above it.
+ *
+ * Must run inside the writer's transaction: the alert is delivered after commit (LowStockAlertDigest), and
+ * nothing is sent if the write rolls back.
+ */
+@Component
+public class LowStockEvaluator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockEvaluator.class);
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LowStockEvaluator(InventoryItemRepository inventoryItemRepository, ApplicationEventPublisher eventPublisher) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void evaluate(Long itemId) {
+        if (inventoryItemRepository.markLowStock(itemId) == 1) {
+            inventoryItemRepository.findLowStockAlertById(itemId).ifPresent(alert -> {
+                logger.info("Inventory item ID: {} fell to {} (reorder level {})", itemId, alert.getQuantity(), alert.getReorderLevel());
+                eventPublisher.publishEvent(alert);
+            });
+        } else if (inventoryItemRepository.clearLowStock(itemId) == 1) {
+            logger.debug("Inventory item ID: {} is back above its reorder level", itemId);
+        }
+    }
+
+    // A category's reorder level changed: re-check only its items that inherit it and are now on the wrong side
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void evaluateCategory(Long categoryId) {
+        List<Long> itemIds = inventoryItemRepository.findLowStockMismatchIdsByCategoryId(categoryId);
+        logger.debug("Re-evaluating {} inventory items of category ID: {}", itemIds.size(), categoryId);
+        itemIds.forEach(this::evaluate);
+    }
+}
@@ -0,0 +1,212 @@
+package com.joe.springsecurity.inventory.service;
+
+import com.joe.springsecurity.inventory.enums.MovementStatus;
+import com.joe.springsecurity.inventory.model.StockMovement;
+import com.joe.springsecurity.inventory.repo.InventoryItemRepository;
+import com.joe.springsecurity.inventory.repo.StockMovementRepository;
+import com.joe.springsecurity.utils.CollectionVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges recorded stock movements per item and applies them on a fixed interval, one conditional UPDATE per
+ * item per flush instead of one per sale. On-hand quantity therefore trails the ledger by at most about one
+ * flush interval (app.stock.flush-interval-ms).
+ *
+ * Movements are already stored as PENDING before they get here, so nothing is lost on a crash: the recovery
+ * pass re-queues PENDING rows older than app.stock.recovery-age-ms. Each flush claims its rows with a
+ * conditional PENDING -> APPLIED update in the same transaction as the quantity change, so a movement is
+ * never applied twice even if it was queued twice.
+ */
+@Component
+public class StockMovementCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockMovementCoalescer.class);
+
+    private final Map<Long, PendingItem> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong queuedMovements = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong itemsFlushed = new AtomicLong();
+    private final AtomicLong movementsApplied = new AtomicLong();
+    private final AtomicLong movementsRejected = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+    private final AtomicLong lastApplyLagMillis = new AtomicLong();
+    private final AtomicLong maxApplyLagMillis = new AtomicLong();
+
+    private final StockMovementRepository stockMovementRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final CollectionVersionService collectionVersionService;
+    private final LowStockEvaluator lowStockEvaluator;
+    private final TransactionTemplate transactionTemplate;
+    private final long recoveryAgeMillis;
+
+    public StockMovementCoalescer(StockMovementRepository stockMovementRepository,
+                                  InventoryItemRepository inventoryItemRepository,
+                                  CollectionVersionService collectionVersionService,
+                                  LowStockEvaluator lowStockEvaluator,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.stock.recovery-age-ms:60000}") long recoveryAgeMillis) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.collectionVersionService = collectionVersionService;
+        this.lowStockEvaluator = lowStockEvaluator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recoveryAgeMillis = recoveryAgeMillis;
+    }
+
+    public void enqueue(Long movementId, Long inventoryItemId, Long companyId, int delta) {
+        pending.compute(inventoryItemId, (itemId, item) -> {
+            PendingItem merged = item != null ? item : new PendingItem(companyId);
+            merged.add(movementId, delta);
+            return merged;
+        });
+        queuedMovements.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int items = 0;
+        for (Long itemId : new ArrayList<>(pending.keySet())) {
+            // remove() hands this thread the batch; later movements for the item start a new one
+            PendingItem batch = pending.remove(itemId);
+            if (batch == null) {
+                continue;
+            }
+            queuedMovements.addAndGet(-batch.movementIds.size());
+            recordLag(start - batch.firstQueuedAt);
+            try {
+                apply(itemId, batch);
+            } catch (Exception e) {
+                // Rows stay PENDING in the ledger and are picked up again by recoverPending()
+                logger.error("Failed to apply {} stock movements for inventory item ID: {}", batch.movementIds.size(), itemId, e);
+            }
+            items++;
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        flushCount.incrementAndGet();
+        itemsFlushed.addAndGet(items);
+        lastFlushMillis.set(elapsed);
+        maxFlushMillis.accumulateAndGet(elapsed, Math::max);
+        logger.debug("Flushed stock movements for {} items in {} ms", items, elapsed);
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.recovery-interval-ms:60000}")
+    public void recoverPending() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(recoveryAgeMillis * 1_000_000);
+        List<StockMovement> orphans = stockMovementRepository
+                .findTop1000ByStatusAndCreatedAtBeforeOrderByIdAsc(MovementStatus.PENDING, before);
+        if (!orphans.isEmpty()) {
+            logger.warn("Re-queuing {} pending stock movements", orphans.size());
+            orphans.forEach(movement -> enqueue(movement.getId(), movement.getInventoryItemId(),
+                    movement.getCompanyId(), movement.getDelta()));
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queuedMovements", queuedMovements.get());
+        metrics.put("queuedItems", pending.size());
+        metrics.put("flushCount", flushCount.get());
+        metrics.put("itemsFlushed", itemsFlushed.get());
+        metrics.put("movementsApplied", movementsApplied.get());
+        metrics.put("movementsRejected", movementsRejected.get());
+        metrics.put("lastFlushMillis", lastFlushMillis.get());
+        metrics.put("maxFlushMillis", maxFlushMillis.get());
+        metrics.put("lastApplyLagMillis", lastApplyLagMillis.get());
+        metrics.put("maxApplyLagMillis", maxApplyLagMillis.get());
+        return metrics;
+    }
+
+    private void apply(Long itemId, PendingItem batch) {
+        // Common case: the net change fits, so the whole batch is one UPDATE on the item
+        Boolean applied = transactionTemplate.execute(status -> {
+            if (inventoryItemRepository.adjustQuantity(itemId, batch.companyId, batch.netDelta) == 1
+                    && stockMovementRepository.transition(batch.movementIds, MovementStatus.PENDING,
+                    MovementStatus.APPLIED, LocalDateTime.now()) == batch.movementIds.size()) {
+                lowStockEvaluator.evaluate(itemId);
+                collectionVersionService.bump(batch.companyId, CollectionVersionService.INVENTORY_ITEMS);
+                return true;
+            }
+            status.setRollbackOnly();
+            return false;
+        });
+        if (Boolean.TRUE.equals(applied)) {
+            movementsApplied.addAndGet(batch.movementIds.size());
+            return;
+        }
+
+        // Net change would go negative, the item is gone, or some rows were already handled:
+        // settle the movements one at a time, in the order they were recorded
+        for (int i = 0; i < batch.movementIds.size(); i++) {
+            applySingle(itemId, batch.companyId, batch.movementIds.get(i), batch.deltas.get(i));
+        }
+    }
+
+    private void applySingle(Long itemId, Long companyId, Long movementId, int delta) {
+        MovementStatus outcome = transactionTemplate.execute(status -> {
+            boolean adjusted = inventoryItemRepository.adjustQuantity(itemId, companyId, delta) == 1;
+            MovementStatus target = adjusted ? MovementStatus.APPLIED : MovementStatus.REJECTED;
+            if (stockMovementRepository.transition(Collections.singletonList(movementId), MovementStatus.PENDING,
+                    target, LocalDateTime.now()) == 0) {
+                // Already settled by an earlier flush
+                status.setRollbackOnly();
+                return null;
+            }
+            if (adjusted) {
+                lowStockEvaluator.evaluate(itemId);
+                collectionVersionService.bump(companyId, CollectionVersionService.INVENTORY_ITEMS);
+            }
+            return target;
+        });
+        if (outcome == MovementStatus.APPLIED) {
+            movementsApplied.incrementAndGet();
+        } else if (outcome == MovementStatus.REJECTED) {
+            movementsRejected.incrementAndGet();
+            logger.warn("Rejected stock movement ID: {} for inventory item ID: {} (delta {})", movementId, itemId, delta);
+        }
+    }
+
+    private void recordLag(long lagMillis) {
+        lastApplyLagMillis.set(lagMillis);
+        maxApplyLagMillis.accumulateAndGet(lagMillis, Math::max);
+    }
+
+    // Only touched inside ConcurrentHashMap.compute / after remove(), so plain fields are safe
+    private static final class PendingItem {
+        private final Long companyId;
+        private final long firstQueuedAt = System.currentTimeMillis();
+        private final List<Long> movementIds = new ArrayList<>();
+        private final List<Integer> deltas = new ArrayList<>();
+        private int netDelta;
+
+        private PendingItem(Long companyId) {
+            this.companyId = companyId;
+        }
+
+        private void add(Long movementId, int delta) {
+            movementIds.add(movementId);
+            deltas.add(delta);
+            netDelta += delta;
+        }
+    }
+}
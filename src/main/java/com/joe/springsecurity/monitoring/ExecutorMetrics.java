@@ -0,0 +1,83 @@
+package com.joe.springsecurity.monitoring;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the workload executors built in AsyncConfig and reports their queue depth,
+ * activity and rejections for the monitoring endpoint.
+ */
+@Component
+public class ExecutorMetrics {
+
+    private final Map<String, ThreadPoolTaskExecutor> pools = new ConcurrentHashMap<>();
+    private final Map<String, CountingRejectedExecutionHandler> rejectedHandlers = new ConcurrentHashMap<>();
+    private final Map<String, SimpleAsyncTaskExecutor> virtualExecutors = new ConcurrentHashMap<>();
+
+    public void register(String name, ThreadPoolTaskExecutor executor, CountingRejectedExecutionHandler rejectedHandler) {
+        pools.put(name, executor);
+        rejectedHandlers.put(name, rejectedHandler);
+    }
+
+    public void register(String name, SimpleAsyncTaskExecutor executor) {
+        virtualExecutors.put(name, executor);
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        pools.forEach((name, executor) -> {
+            ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("mode", "platform");
+            stats.put("poolSize", pool.getPoolSize());
+            stats.put("corePoolSize", pool.getCorePoolSize());
+            stats.put("maxPoolSize", pool.getMaximumPoolSize());
+            stats.put("activeCount", pool.getActiveCount());
+            stats.put("largestPoolSize", pool.getLargestPoolSize());
+            stats.put("queueSize", pool.getQueue().size());
+            stats.put("queueRemainingCapacity", pool.getQueue().remainingCapacity());
+            stats.put("completedTaskCount", pool.getCompletedTaskCount());
+            stats.put("rejectedCount", rejectedHandlers.get(name).getRejectedCount());
+            snapshot.put(name, stats);
+        });
+        virtualExecutors.forEach((name, executor) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("mode", "virtual");
+            stats.put("concurrencyLimit", executor.getConcurrencyLimit());
+            stats.put("throttleActive", executor.isThrottleActive());
+            snapshot.put(name, stats);
+        });
+        return snapshot;
+    }
+
+    /**
+     * Counts rejections before handing the task to the configured policy.
+     */
+    public static class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler delegate;
+        private final AtomicLong rejectedCount = new AtomicLong();
+
+        public CountingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejectedCount.incrementAndGet();
+            delegate.rejectedExecution(task, executor);
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount.get();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.joe.springsecurity.monitoring;
+
+import com.joe.springsecurity.audit.service.AuditLogWriter;
+import com.joe.springsecurity.auth.service.RateLimiter;
+import com.joe.springsecurity.auth.service.WelcomeEmailQueue;
+import com.joe.springsecurity.cache.InvalidationBus;
+import com.joe.springsecurity.inventory.service.ItemCategoryCache;
+import com.joe.springsecurity.inventory.service.LowStockAlertDigest;
+import com.joe.springsecurity.inventory.service.StockMovementCoalescer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v2/monitoring")
+public class MonitoringController {
+
+    private final ExecutorMetrics executorMetrics;
+    private final StockMovementCoalescer stockMovementCoalescer;
+    private final LowStockAlertDigest lowStockAlertDigest;
+    private final AuditLogWriter auditLogWriter;
+    private final ItemCategoryCache itemCategoryCache;
+    private final InvalidationBus invalidationBus;
+    private final RateLimiter rateLimiter;
+    private final WelcomeEmailQueue welcomeEmailQueue;
+
+    public MonitoringController(ExecutorMetrics executorMetrics, StockMovementCoalescer stockMovementCoalescer,
+                                LowStockAlertDigest lowStockAlertDigest, AuditLogWriter auditLogWriter,
+                                ItemCategoryCache itemCategoryCache, InvalidationBus invalidationBus,
+                                RateLimiter rateLimiter, WelcomeEmailQueue welcomeEmailQueue) {
+        this.executorMetrics = executorMetrics;
+        this.stockMovementCoalescer = stockMovementCoalescer;
+        this.lowStockAlertDigest = lowStockAlertDigest;
+        this.auditLogWriter = auditLogWriter;
+        this.itemCategoryCache = itemCategoryCache;
+        this.invalidationBus = invalidationBus;
+        this.rateLimiter = rateLimiter;
+        this.welcomeEmailQueue = welcomeEmailQueue;
+    }
+
+    // Pool size, queue depth and rejections per workload executor
+    @GetMapping("/executors")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Map<String, Object>>> getExecutorStats() {
+        return ResponseEntity.ok(executorMetrics.snapshot());
+    }
+
+    // Queue depth, flush duration and apply lag of the stock movement coalescer
+    @GetMapping("/stock-movements")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStockMovementStats() {
+        return ResponseEntity.ok(stockMovementCoalescer.metrics());
+    }
+
+    // Alerts received, merged within a digest interval, and digests sent
+    @GetMapping("/low-stock-alerts")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getLowStockAlertStats() {
+        return ResponseEntity.ok(lowStockAlertDigest.metrics());
+    }
+
+    // Queue depth, batches written and entries dropped by the audit log writer
+    @GetMapping("/audit-writer")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAuditWriterStats() {
+        return ResponseEntity.ok(auditLogWriter.metrics());
+    }
+
+    // Hit rate and size of the item category cache
+    @GetMapping("/item-category-cache")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getItemCategoryCacheStats() {
+        return ResponseEntity.ok(itemCategoryCache.metrics());
+    }
+
+    // Cache invalidation events published, received from other nodes and delivered locally
+    @GetMapping("/invalidation")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getInvalidationStats() {
+        return ResponseEntity.ok(invalidationBus.metrics());
+    }
+
+    // Requests allowed and rejected, per-route rejections and tracked keys of the rate limiter
+    @GetMapping("/rate-limits")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.metrics());
+    }
+
+    // Queued welcome emails of bulk-provisioned users: pending, sent, failed and dropped
+    @GetMapping("/welcome-emails")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getWelcomeEmailStats() {
+        return ResponseEntity.ok(welcomeEmailQueue.metrics());
+    }
+}
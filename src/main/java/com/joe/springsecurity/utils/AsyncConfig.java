@@ -1,9 +1,135 @@
 package com.joe.springsecurity.utils;
 
+import com.joe.springsecurity.monitoring.ExecutorMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * One executor per workload so a slow SMTP server cannot hold up audit writes or cleanup, and none of them
+ * can grow without bound. Each pool reads app.executors.&lt;name&gt;.* (core-size, max-size, queue-capacity,
+ * rejection-policy). With app.executors.mode=virtual on JDK 21+ the workloads run on virtual threads
+ * instead, limited to max-size concurrent tasks; on older JDKs that setting falls back to the pools.
+ */
 @Configuration
 @EnableAsync
-public class AsyncConfig {
+public class AsyncConfig implements AsyncConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    private final Environment environment;
+    private final ExecutorMetrics executorMetrics;
+
+    public AsyncConfig(Environment environment, ExecutorMetrics executorMetrics) {
+        this.environment = environment;
+        this.executorMetrics = executorMetrics;
+    }
+
+    @Bean
+    public AsyncTaskExecutor mailExecutor() {
+        return createExecutor("mail", 2, 4, 500, "caller-runs");
+    }
+
+    @Bean
+    public AsyncTaskExecutor auditExecutor() {
+        return createExecutor("audit", 1, 2, 2000, "caller-runs");
+    }
+
+    @Bean
+    public AsyncTaskExecutor cleanupExecutor() {
+        return createExecutor("cleanup", 1, 1, 10, "discard");
+    }
+
+    @Bean
+    public AsyncTaskExecutor bulkExecutor() {
+        return createExecutor("bulk", 1, 2, 20, "abort");
+    }
+
+    // Password hashing for bulk provisioning, apart from the login hashing pool; half the cores by default so
+    // logins keep the rest. When the queue is full the bulk job hashes on its own thread and slows down.
+    @Bean
+    public AsyncTaskExecutor bulkHashExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return createExecutor("bulk-hash", threads, threads, 1000, "caller-runs");
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) ->
+                logger.error("Async call {}.{} failed", method.getDeclaringClass().getSimpleName(), method.getName(), ex);
+    }
+
+    private AsyncTaskExecutor createExecutor(String name, int coreSize, int maxSize, int queueCapacity, String rejectionPolicy) {
+        String prefix = "app.executors." + name + ".";
+        coreSize = environment.getProperty(prefix + "core-size", Integer.class, coreSize);
+        maxSize = Math.max(coreSize, environment.getProperty(prefix + "max-size", Integer.class, maxSize));
+        queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity);
+        rejectionPolicy = environment.getProperty(prefix + "rejection-policy", rejectionPolicy);
+
+        if ("virtual".equalsIgnoreCase(environment.getProperty("app.executors.mode", "platform"))) {
+            ThreadFactory virtualThreadFactory = virtualThreadFactory(name);
+            if (virtualThreadFactory != null) {
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(virtualThreadFactory);
+                // Virtual threads are cheap, the SMTP server and connection pool are not; callers wait past this limit
+                executor.setConcurrencyLimit(maxSize);
+                executorMetrics.register(name, executor);
+                logger.info("Executor '{}' running on virtual threads (concurrency limit {})", name, maxSize);
+                return executor;
+            }
+            logger.warn("Virtual threads need JDK 21+, executor '{}' falls back to a bounded pool", name);
+        }
+
+        ExecutorMetrics.CountingRejectedExecutionHandler rejectedHandler =
+                new ExecutorMetrics.CountingRejectedExecutionHandler(rejectionHandler(rejectionPolicy));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(rejectedHandler);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        executorMetrics.register(name, executor, rejectedHandler);
+        return executor;
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(String policy) {
+        switch (policy.toLowerCase()) {
+            case "abort":
+                return new ThreadPoolExecutor.AbortPolicy();
+            case "discard":
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case "discard-oldest":
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            case "caller-runs":
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            default:
+                throw new IllegalArgumentException("Unknown rejection policy: " + policy);
+        }
+    }
+
+    // Thread.ofVirtual() is looked up reflectively so the project still compiles for JDK 17
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-vt-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
 }
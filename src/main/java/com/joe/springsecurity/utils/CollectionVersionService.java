@@ -0,0 +1,44 @@
+package com.joe.springsecurity.utils;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Per-tenant version counters for collections (cms_collection_versions). Writers bump the counter inside
+ * their own transaction; list endpoints turn the current value into an ETag, so an unchanged collection can
+ * be answered with 304 without reading or serializing any rows. The ETag is weak: it names the page's content,
+ * not its bytes, which differ once the response is gzipped (Tomcat will not compress a strong-ETag response).
+ */
+@Service
+public class CollectionVersionService {
+
+    public static final String INVENTORY_ITEMS = "inventory-items";
+    public static final String ITEM_CATEGORIES = "item-categories";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CollectionVersionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long currentVersion(Long companyId, String collection) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM cms_collection_versions WHERE company_id = ? AND collection = ?",
+                Long.class, companyId, collection);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+
+    // Joins the caller's transaction, so the new version becomes visible together with the write
+    public void bump(Long companyId, String collection) {
+        jdbcTemplate.update(
+                "INSERT INTO cms_collection_versions (company_id, collection, version) VALUES (?, ?, 1) " +
+                        "ON DUPLICATE KEY UPDATE version = version + 1",
+                companyId, collection);
+    }
+
+    public String eTag(Long companyId, String collection) {
+        return "W/\"" + collection + "-" + companyId + "-" + currentVersion(companyId, collection) + "\"";
+    }
+}
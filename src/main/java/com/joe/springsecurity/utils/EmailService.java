@@ -1,6 +1,7 @@
 package com.joe.springsecurity.utils;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -8,6 +9,8 @@ import org.springframework.stereotype.Service;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class EmailService {
@@ -16,7 +19,7 @@ public class EmailService {
     private JavaMailSender mailSender;
 
     // Send a simple email
-    @Async
+    @Async("mailExecutor")
     public void sendEmail(String to, String subject, String text) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true);
@@ -27,7 +30,7 @@ public class EmailService {
     }
 
     // Send an HTML email (if required)
-    @Async
+    @Async("mailExecutor")
     public void sendHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true);
@@ -36,4 +39,11 @@ public class EmailService {
         helper.setText(htmlContent, true);  // Set to true for HTML content
         mailSender.send(message);
     }
+
+    // Send plain-text emails over one SMTP connection; the future fails with the MailException if the send does
+    @Async("mailExecutor")
+    public CompletableFuture<Void> sendBatch(List<SimpleMailMessage> messages) {
+        mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -0,0 +1,48 @@
+package com.joe.springsecurity.utils;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Turns free-text user input into safe MySQL search expressions.
+ */
+public final class FullTextQuery {
+
+    // InnoDB's default innodb_ft_min_token_size; shorter words are not in the FULLTEXT index
+    public static final int MIN_TOKEN_LENGTH = 3;
+
+    private static final char LIKE_ESCAPE = '!';
+
+    private FullTextQuery() {
+    }
+
+    /**
+     * BOOLEAN MODE expression requiring every word, each as a prefix ("+lapt* +dell*"). Operator characters
+     * in the input are dropped. Returns null when no word is long enough for the FULLTEXT index.
+     */
+    public static String toBooleanMode(String input) {
+        if (input == null) {
+            return null;
+        }
+        String expression = Arrays.stream(input.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> term.length() >= MIN_TOKEN_LENGTH)
+                .map(term -> "+" + term + "*")
+                .collect(Collectors.joining(" "));
+        return expression.isEmpty() ? null : expression;
+    }
+
+    /**
+     * LIKE pattern matching values that start with the input, for use with ESCAPE '!'.
+     */
+    public static String likePrefix(String input) {
+        StringBuilder pattern = new StringBuilder();
+        for (char c : input.trim().toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
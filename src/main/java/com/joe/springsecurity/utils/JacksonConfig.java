@@ -0,0 +1,17 @@
+package com.joe.springsecurity.utils;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Generates accessors through LambdaMetafactory instead of reflection; Boot registers Module beans
+    // with the shared ObjectMapper. Blackbird is the Afterburner replacement for JDK 11+.
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,48 @@
+package com.joe.springsecurity.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a page straight to the response with a JsonGenerator, producing the same shape as PageResponse.
+ * Used for large pages: there is no envelope object or intermediate buffer, and each item is serialized by
+ * the ObjectMapper as it is written, so items carry exactly the fields Jackson gives them everywhere else.
+ */
+public final class PageJsonWriter {
+
+    private PageJsonWriter() {
+    }
+
+    public static void write(HttpServletResponse response, ObjectMapper objectMapper, Page<?> page) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        write(response.getOutputStream(), objectMapper, page);
+    }
+
+    public static void write(OutputStream out, ObjectMapper objectMapper, Page<?> page) throws IOException {
+        // One flush at the end instead of one per item
+        ObjectWriter itemWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("items");
+            for (Object item : page.getContent()) {
+                itemWriter.writeValue(generator, item);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("currentPage", page.getNumber());
+            generator.writeNumberField("totalItems", page.getTotalElements());
+            generator.writeNumberField("totalPages", page.getTotalPages());
+            generator.writeNumberField("size", page.getSize());
+            generator.writeEndObject();
+        }
+    }
+}
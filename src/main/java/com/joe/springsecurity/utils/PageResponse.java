@@ -0,0 +1,16 @@
+package com.joe.springsecurity.utils;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Typed envelope for paged list responses (same JSON shape the controllers used to build in a HashMap).
+ */
+public record PageResponse<T>(List<T> items, int currentPage, long totalItems, int totalPages, int size) {
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getTotalElements(),
+                page.getTotalPages(), page.getSize());
+    }
+}
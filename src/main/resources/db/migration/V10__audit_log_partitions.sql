@@ -0,0 +1,29 @@
+--V10__audit_log_partitions
+
+-- Monthly RANGE partitions on cms_audit_logs so time-ranged queries prune to the months they cover and
+-- retention drops whole partitions instead of deleting rows. Every unique key of a partitioned table must
+-- contain the partitioning column, hence the (id, timestamp) primary key; ids stay unique via cms_id_generators.
+UPDATE cms_audit_logs SET `timestamp` = NOW() WHERE `timestamp` IS NULL;
+
+ALTER TABLE cms_audit_logs
+    MODIFY `timestamp` DATETIME NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, `timestamp`);
+
+-- Audit queries by user or action within a time range (AuditLogService)
+CREATE INDEX idx_audit_logs_username_timestamp ON cms_audit_logs (username, `timestamp`);
+CREATE INDEX idx_audit_logs_action_timestamp ON cms_audit_logs (action, `timestamp`);
+
+-- p_history holds everything before the month the migration runs in, which gets the first monthly partition.
+-- The bounds depend on that date, so the statement is built and run as dynamic SQL. AuditPartitionManager
+-- splits further monthly partitions (pYYYYMM) out of p_future ahead of time, so p_future stays empty and
+-- each split is instant.
+SET @audit_partition_sql = CONCAT(
+    'ALTER TABLE cms_audit_logs PARTITION BY RANGE COLUMNS (`timestamp`) (',
+    'PARTITION p_history VALUES LESS THAN (''', DATE_FORMAT(CURRENT_DATE, '%Y-%m-01'), '''), ',
+    'PARTITION p', DATE_FORMAT(CURRENT_DATE, '%Y%m'),
+    ' VALUES LESS THAN (''', DATE_FORMAT(CURRENT_DATE + INTERVAL 1 MONTH, '%Y-%m-01'), '''), ',
+    'PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+PREPARE audit_partition_stmt FROM @audit_partition_sql;
+EXECUTE audit_partition_stmt;
+DEALLOCATE PREPARE audit_partition_stmt;
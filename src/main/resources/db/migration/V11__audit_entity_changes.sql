@@ -0,0 +1,12 @@
+--V11__audit_entity_changes
+
+-- Entity-level audit capture (EntityAuditListener): which row changed, its tenant, and the changed fields
+-- as gzip-compressed JSON ({"field": [old, new]}). NULL for rows written by AuditLogAspect.
+ALTER TABLE cms_audit_logs
+    ADD COLUMN entity_type VARCHAR(100) NULL,
+    ADD COLUMN entity_id   BIGINT       NULL,
+    ADD COLUMN company_id  BIGINT       NULL,
+    ADD COLUMN changes     LONGBLOB     NULL;
+
+-- History of one entity, newest first
+CREATE INDEX idx_audit_logs_entity_timestamp ON cms_audit_logs (entity_type, entity_id, `timestamp`);
@@ -0,0 +1,15 @@
+--V12__invalidation_events
+
+-- Cache invalidation outbox for multi-node deployments (DatabaseInvalidationBus, app.invalidation.mode=database).
+-- Rows are inserted in the writer's transaction, polled by every node by id and purged by created_at after
+-- app.invalidation.retention-ms. Not mapped by JPA, so the id is a plain AUTO_INCREMENT.
+CREATE TABLE cms_invalidation_events (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    cache_name VARCHAR(100) NOT NULL,
+    cache_key  VARCHAR(255),
+    origin     VARCHAR(64)  NOT NULL,
+    created_at DATETIME(3)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_invalidation_events_created ON cms_invalidation_events (created_at);
@@ -0,0 +1,14 @@
+--V13__token_families
+
+-- Refresh token families: one cms_tokens row per login, updated in place on every refresh.
+-- refresh_token_id is the jti of the only refresh token of the family that may still be used;
+-- presenting an older one revokes the whole family. Existing rows become single-token families.
+ALTER TABLE cms_tokens
+    ADD COLUMN family_id        VARCHAR(36),
+    ADD COLUMN refresh_token_id VARCHAR(36);
+
+UPDATE cms_tokens SET family_id = UUID();
+
+ALTER TABLE cms_tokens MODIFY family_id VARCHAR(36) NOT NULL;
+
+CREATE UNIQUE INDEX uk_tokens_family ON cms_tokens (family_id);
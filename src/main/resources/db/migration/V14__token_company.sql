@@ -0,0 +1,7 @@
+--V14__token_company
+
+-- Active company of a token family. A company switch updates it together with the access token, so the
+-- next refresh keeps the switched company without issuing a new refresh token. NULL on rows written before
+-- this column; refresh then falls back to the companyId claim of the refresh token.
+ALTER TABLE cms_tokens
+    ADD COLUMN company_id BIGINT NULL;
@@ -0,0 +1,14 @@
+--V15__user_company_memberships
+
+-- user_companies becomes the only membership table (primary key (user_id, company_id)).
+-- Rows of the unused cms_usercompany table are carried over before it is dropped.
+INSERT IGNORE INTO user_companies (user_id, company_id)
+SELECT user_id, company_id FROM cms_usercompany
+WHERE user_id IS NOT NULL AND company_id IS NOT NULL;
+
+DROP TABLE cms_usercompany;
+
+DELETE FROM cms_id_generators WHERE gen_name = 'cms_usercompany';
+
+-- Members of a company
+CREATE INDEX idx_user_companies_company_user ON user_companies (company_id, user_id);
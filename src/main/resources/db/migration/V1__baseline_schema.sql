@@ -0,0 +1,140 @@
+--V1__baseline_schema
+
+-- Full schema as it stood when Flyway took over from hibernate.ddl-auto.
+-- Existing databases are baselined at version 1, so this script only runs against an empty schema:
+-- spring.flyway.baseline-on-migrate covers a schema with no history table, and FlywayConfig covers
+-- one whose history table exists but records nothing. Ids are assigned by the cms_id_generators table (V3).
+
+CREATE TABLE cms_countries (
+    id        BIGINT NOT NULL,
+    code      VARCHAR(255),
+    continent VARCHAR(255),
+    name      VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_companies (
+    id                BIGINT NOT NULL,
+    address           VARCHAR(255),
+    name              VARCHAR(255),
+    primary_contact   VARCHAR(255),
+    primary_email     VARCHAR(255),
+    registration      VARCHAR(255),
+    secondary_contact VARCHAR(255),
+    secondary_email   VARCHAR(255),
+    status            BIT    NOT NULL,
+    tax_id            VARCHAR(255),
+    town              VARCHAR(255),
+    country_id        BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_companies_name UNIQUE (name),
+    CONSTRAINT fk_companies_country FOREIGN KEY (country_id) REFERENCES cms_countries (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_users (
+    id         BIGINT NOT NULL,
+    email      VARCHAR(255),
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    password   VARCHAR(255),
+    username   VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    roles   VARCHAR(255),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES cms_users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_companies (
+    user_id    BIGINT NOT NULL,
+    company_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, company_id),
+    CONSTRAINT fk_user_companies_user FOREIGN KEY (user_id) REFERENCES cms_users (id),
+    CONSTRAINT fk_user_companies_company FOREIGN KEY (company_id) REFERENCES cms_companies (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_usercompany (
+    id         BIGINT NOT NULL,
+    company_id BIGINT,
+    user_id    BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_usercompany_company FOREIGN KEY (company_id) REFERENCES cms_companies (id),
+    CONSTRAINT fk_usercompany_user FOREIGN KEY (user_id) REFERENCES cms_users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_tokens (
+    id              BIGINT NOT NULL,
+    access_token    VARCHAR(255),
+    expiration_date DATETIME,
+    is_logged_out   BIT    NOT NULL,
+    refresh_token   VARCHAR(255),
+    user_id         BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_tokens_user FOREIGN KEY (user_id) REFERENCES cms_users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_password_reset_tokens (
+    id              BIGINT       NOT NULL,
+    expiration_date DATETIME     NOT NULL,
+    token           VARCHAR(255) NOT NULL,
+    user_id         BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_password_reset_tokens_token UNIQUE (token),
+    CONSTRAINT fk_password_reset_tokens_user FOREIGN KEY (user_id) REFERENCES cms_users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_permissions (
+    id   BIGINT NOT NULL,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_email_configs (
+    id            BIGINT  NOT NULL,
+    active        BIT     NOT NULL,
+    from_address  VARCHAR(255),
+    smtp_host     VARCHAR(255),
+    smtp_password VARCHAR(255),
+    smtp_port     INTEGER NOT NULL,
+    smtp_username VARCHAR(255),
+    company_id    BIGINT  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_email_configs_company UNIQUE (company_id),
+    CONSTRAINT fk_email_configs_company FOREIGN KEY (company_id) REFERENCES cms_companies (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_item_categories (
+    id          BIGINT       NOT NULL,
+    description VARCHAR(255),
+    item_type   VARCHAR(255) NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    company_id  BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_item_categories_name_company UNIQUE (name, company_id),
+    CONSTRAINT fk_item_categories_company FOREIGN KEY (company_id) REFERENCES cms_companies (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_inventory_item (
+    id               BIGINT       NOT NULL,
+    description      VARCHAR(255),
+    name             VARCHAR(255) NOT NULL,
+    price            DOUBLE       NOT NULL,
+    quantity         INTEGER      NOT NULL,
+    company_id       BIGINT,
+    item_category_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_inventory_item_company FOREIGN KEY (company_id) REFERENCES cms_companies (id),
+    CONSTRAINT fk_inventory_item_category FOREIGN KEY (item_category_id) REFERENCES cms_item_categories (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cms_audit_logs (
+    id          BIGINT NOT NULL,
+    action      VARCHAR(255),
+    details     VARCHAR(255),
+    `timestamp` DATETIME,
+    username    VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,23 @@
+--V3__create_id_generators
+
+-- Pooled-lo id allocation for every entity. Hibernate cannot batch inserts into
+-- AUTO_INCREMENT tables, so ids are now handed out in blocks of 50 from this table.
+-- Each row is seeded past the current MAX(id) so existing rows are never reused.
+
+CREATE TABLE cms_id_generators (
+    gen_name  VARCHAR(255) NOT NULL,
+    gen_value BIGINT       NOT NULL,
+    PRIMARY KEY (gen_name)
+) ENGINE = InnoDB;
+
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_audit_logs', COALESCE(MAX(id), 0) + 1 FROM cms_audit_logs;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_companies', COALESCE(MAX(id), 0) + 1 FROM cms_companies;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_countries', COALESCE(MAX(id), 0) + 1 FROM cms_countries;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_email_configs', COALESCE(MAX(id), 0) + 1 FROM cms_email_configs;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_inventory_item', COALESCE(MAX(id), 0) + 1 FROM cms_inventory_item;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_item_categories', COALESCE(MAX(id), 0) + 1 FROM cms_item_categories;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_password_reset_tokens', COALESCE(MAX(id), 0) + 1 FROM cms_password_reset_tokens;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_permissions', COALESCE(MAX(id), 0) + 1 FROM cms_permissions;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_tokens', COALESCE(MAX(id), 0) + 1 FROM cms_tokens;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_usercompany', COALESCE(MAX(id), 0) + 1 FROM cms_usercompany;
+INSERT INTO cms_id_generators (gen_name, gen_value) SELECT 'cms_users', COALESCE(MAX(id), 0) + 1 FROM cms_users;
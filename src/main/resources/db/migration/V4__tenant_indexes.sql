@@ -0,0 +1,26 @@
+--V4__tenant_indexes
+
+-- Composite indexes for the tenant-scoped and per-request lookups. Every list query filters on
+-- company_id first, and the trailing id column lets paged scans read rows in primary key order.
+
+-- InventoryItemRepository.findByCompany / countByCompany
+CREATE INDEX idx_inventory_item_company ON cms_inventory_item (company_id, id);
+
+-- InventoryItemRepository.findByCompanyAndItemCategory
+CREATE INDEX idx_inventory_item_company_category ON cms_inventory_item (company_id, item_category_id, id);
+
+-- ItemCategoryRepository.findByCompany / findByCompanyAndName
+CREATE INDEX idx_item_categories_company_name ON cms_item_categories (company_id, name);
+
+-- TokenRepository.findAllAccessTokensByUser (revocation on login, refresh and company switch)
+CREATE INDEX idx_tokens_user_logged_out ON cms_tokens (user_id, is_logged_out);
+
+-- JwtService.isValid / isValidRefreshToken and CustomLogoutHandler run these on every request
+CREATE INDEX idx_tokens_access_token ON cms_tokens (access_token);
+CREATE INDEX idx_tokens_refresh_token ON cms_tokens (refresh_token);
+
+-- UserRepository.findByUsername backs every authenticated request
+CREATE INDEX idx_users_username ON cms_users (username);
+
+-- Audit log browsing and retention are always time-ranged
+CREATE INDEX idx_audit_logs_timestamp ON cms_audit_logs (`timestamp`);
@@ -0,0 +1,15 @@
+--V5__entity_versions
+
+-- Optimistic lock / ETag version columns for the entities behind the most polled reads
+ALTER TABLE cms_inventory_item ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE cms_item_categories ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE cms_companies ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- One counter per tenant and collection, bumped in the same transaction as any write to that collection.
+-- List endpoints derive their ETag from it without reading the listed rows.
+CREATE TABLE cms_collection_versions (
+    company_id BIGINT NOT NULL,
+    collection VARCHAR(64) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (company_id, collection)
+) ENGINE = InnoDB;
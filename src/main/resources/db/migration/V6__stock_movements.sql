@@ -0,0 +1,22 @@
+--V6__stock_movements
+
+-- Append-only stock ledger. Movements are recorded as PENDING and applied to
+-- cms_inventory_item.quantity in coalesced batches (StockMovementCoalescer). No foreign key to the
+-- item: history is kept when an item is deleted, and its pending movements are rejected.
+CREATE TABLE cms_stock_movements (
+    id                BIGINT       NOT NULL,
+    inventory_item_id BIGINT       NOT NULL,
+    company_id        BIGINT       NOT NULL,
+    delta             INTEGER      NOT NULL,
+    status            VARCHAR(255) NOT NULL,
+    username          VARCHAR(255),
+    created_at        DATETIME,
+    applied_at        DATETIME,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Recovery scan of PENDING movements, and per-item history
+CREATE INDEX idx_stock_movements_status_created ON cms_stock_movements (status, created_at);
+CREATE INDEX idx_stock_movements_item ON cms_stock_movements (inventory_item_id, id);
+
+INSERT INTO cms_id_generators (gen_name, gen_value) VALUES ('cms_stock_movements', 1);
@@ -0,0 +1,8 @@
+--V7__search_indexes
+
+-- Ranked search (MATCH ... AGAINST in BOOLEAN MODE) over item names/descriptions and category names
+ALTER TABLE cms_inventory_item ADD FULLTEXT INDEX ft_inventory_item_name_description (name, description);
+ALTER TABLE cms_item_categories ADD FULLTEXT INDEX ft_item_categories_name (name);
+
+-- Typeahead and short-term fallback: name LIKE 'prefix%' within a company is a range scan on this index
+CREATE INDEX idx_inventory_item_company_name ON cms_inventory_item (company_id, name);
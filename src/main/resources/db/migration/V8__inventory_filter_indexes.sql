@@ -0,0 +1,13 @@
+--V8__inventory_filter_indexes
+
+-- Indexes behind InventoryItemSpecifications. Name prefix and category filters already use
+-- idx_inventory_item_company_name (V7) and idx_inventory_item_company_category (V4).
+
+-- Price ranges and sort by price
+CREATE INDEX idx_inventory_item_company_price ON cms_inventory_item (company_id, price);
+
+-- Quantity thresholds (low stock) and sort by quantity
+CREATE INDEX idx_inventory_item_company_quantity ON cms_inventory_item (company_id, quantity);
+
+-- ItemType filter: resolves the company's categories of that type before joining to items
+CREATE INDEX idx_item_categories_company_type ON cms_item_categories (company_id, item_type, id);
@@ -0,0 +1,13 @@
+--V9__reorder_levels
+
+-- Reorder thresholds: an item's own level wins, otherwise its category's applies. NULL on both means
+-- the item is never reported as low on stock.
+ALTER TABLE cms_inventory_item ADD COLUMN reorder_level INTEGER NULL;
+ALTER TABLE cms_item_categories ADD COLUMN reorder_level INTEGER NULL;
+
+-- Set by LowStockEvaluator when the item crosses its threshold and cleared when it is restocked,
+-- so each crossing is alerted once. Never written by entity updates.
+ALTER TABLE cms_inventory_item ADD COLUMN low_stock BIT(1) NOT NULL DEFAULT 0;
+
+-- Low-stock listing through the filter endpoint
+CREATE INDEX idx_inventory_item_company_low_stock ON cms_inventory_item (company_id, low_stock);
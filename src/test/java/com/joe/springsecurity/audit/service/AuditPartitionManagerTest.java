@@ -0,0 +1,136 @@
+package com.joe.springsecurity.audit.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditPartitionManagerTest {
+
+    private static final LocalDate CURRENT_MONTH = LocalDate.now().withDayOfMonth(1);
+
+    @Test
+    void splitsMonthsAheadOutOfAnEmptyFuturePartition() {
+        PartitionedTable table = new PartitionedTable();
+        table.partition("p_history", "'" + CURRENT_MONTH + "'");
+        table.partition(name(CURRENT_MONTH), "'" + CURRENT_MONTH.plusMonths(1) + "'");
+        table.partition("p_future", "MAXVALUE");
+
+        new AuditPartitionManager(table, 2, 0).maintain();
+
+        assertEquals(1, table.statements.size());
+        String statement = table.statements.get(0);
+        assertTrue(statement.startsWith("ALTER TABLE cms_audit_logs REORGANIZE PARTITION p_future INTO ("), statement);
+        // The current month plus two ahead are covered
+        for (int i = 1; i <= 2; i++) {
+            LocalDate month = CURRENT_MONTH.plusMonths(i);
+            assertTrue(statement.contains("PARTITION " + name(month) + " VALUES LESS THAN ('" + month.plusMonths(1) + "')"),
+                    statement);
+        }
+        assertFalse(statement.contains(name(CURRENT_MONTH.plusMonths(3))), statement);
+        assertTrue(statement.endsWith("PARTITION p_future VALUES LESS THAN (MAXVALUE))"), statement);
+    }
+
+    @Test
+    void catchesUpFromAnOldLastBound() {
+        PartitionedTable table = new PartitionedTable();
+        table.partition("p_history", "'" + CURRENT_MONTH.minusMonths(2) + "'");
+        table.partition("p_future", "MAXVALUE");
+
+        new AuditPartitionManager(table, 1, 0).maintain();
+
+        String statement = table.statements.get(0);
+        assertTrue(statement.contains("PARTITION " + name(CURRENT_MONTH.minusMonths(2)) + " "), statement);
+        assertTrue(statement.contains("PARTITION " + name(CURRENT_MONTH) + " "), statement);
+        assertTrue(statement.contains("PARTITION " + name(CURRENT_MONTH.plusMonths(1)) + " "), statement);
+    }
+
+    @Test
+    void leavesANonEmptyFuturePartitionAlone() {
+        PartitionedTable table = new PartitionedTable();
+        table.partition("p_history", "'" + CURRENT_MONTH + "'");
+        table.partition("p_future", "MAXVALUE");
+        table.futureHasRows = true;
+
+        new AuditPartitionManager(table, 3, 0).maintain();
+
+        assertTrue(table.statements.isEmpty(), table.statements.toString());
+    }
+
+    @Test
+    void dropsPartitionsPastRetention() {
+        PartitionedTable table = new PartitionedTable();
+        table.partition("p_history", "'" + CURRENT_MONTH.minusMonths(13) + "'");
+        table.partition(name(CURRENT_MONTH.minusMonths(13)), "'" + CURRENT_MONTH.minusMonths(12) + "'");
+        table.partition(name(CURRENT_MONTH.minusMonths(12)), "'" + CURRENT_MONTH.minusMonths(11) + "'");
+        for (int i = 11; i >= -3; i--) {
+            table.partition(name(CURRENT_MONTH.minusMonths(i)), "'" + CURRENT_MONTH.minusMonths(i - 1) + "'");
+        }
+        table.partition("p_future", "MAXVALUE");
+
+        new AuditPartitionManager(table, 3, 12).maintain();
+
+        assertEquals(List.of("ALTER TABLE cms_audit_logs DROP PARTITION p_history, " + name(CURRENT_MONTH.minusMonths(13))),
+                table.statements);
+    }
+
+    @Test
+    void skipsAnUnpartitionedTable() {
+        PartitionedTable table = new PartitionedTable();
+
+        new AuditPartitionManager(table, 3, 12).maintain();
+
+        assertTrue(table.statements.isEmpty());
+    }
+
+    private static String name(LocalDate month) {
+        return String.format("p%d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    // information_schema.PARTITIONS rows for cms_audit_logs; DDL is recorded rather than run
+    private static final class PartitionedTable extends JdbcTemplate {
+        private final Map<String, String> partitions = new LinkedHashMap<>();
+        private final List<String> statements = new ArrayList<>();
+        private boolean futureHasRows;
+
+        void partition(String name, String description) {
+            partitions.put(name, description);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            partitions.forEach((name, description) -> {
+                ResultSet row = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class},
+                        (proxy, method, methodArgs) -> (int) methodArgs[0] == 1 ? name : description);
+                try {
+                    handler.processRow(row);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType) {
+            return futureHasRows ? List.of((T) Integer.valueOf(1)) : List.of();
+        }
+
+        @Override
+        public void execute(String sql) {
+            statements.add(sql);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.dto.AuthenticationResponse;
+import com.joe.springsecurity.auth.dto.CompanyMembership;
+import com.joe.springsecurity.auth.model.Role;
+import com.joe.springsecurity.auth.model.User;
+import com.joe.springsecurity.auth.repo.TokenRepository;
+import com.joe.springsecurity.auth.repo.UserRepository;
+import com.joe.springsecurity.cache.LocalInvalidationBus;
+import com.joe.springsecurity.company.repo.UserCompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Token families: each refresh rotates the family's token, and presenting a rotated one revokes the family
+class AuthenticationServiceRefreshTest {
+
+    private static final String FAMILY = "family-1";
+    private static final Long COMPANY_ID = 3L;
+
+    private final Map<String, Family> families = new HashMap<>();
+    private JwtService jwtService;
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TokenRepository tokenRepository = fake(TokenRepository.class, (name, args) -> {
+            Family family = families.get((String) args[0]);
+            switch (name) {
+                case "findCompanyIdByFamilyId":
+                    return Optional.ofNullable(family).map(f -> COMPANY_ID);
+                case "rotateRefreshToken":
+                    if (family == null || family.loggedOut || !family.tokenId.equals(args[1])) {
+                        return 0;
+                    }
+                    family.tokenId = (String) args[2];
+                    return 1;
+                case "revokeFamily":
+                    if (family == null || family.loggedOut) {
+                        return 0;
+                    }
+                    family.loggedOut = true;
+                    return 1;
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+        jwtService = new JwtService(tokenRepository);
+        setField(jwtService, "accessTokenExpire", 60_000L);
+        setField(jwtService, "refreshTokenExpire", 600_000L);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setRoles(Set.of(Role.ROLE_USER));
+        UserRepository userRepository = fake(UserRepository.class, (name, args) -> {
+            if (name.equals("findByUsername")) {
+                return Optional.of(user).filter(u -> u.getUsername().equals(args[0]));
+            }
+            throw new UnsupportedOperationException(name);
+        });
+        UserCompanyRepository userCompanyRepository = fake(UserCompanyRepository.class, (name, args) -> {
+            if (name.equals("findMembershipsByUserId")) {
+                return List.of(new CompanyMembership(COMPANY_ID, "Acme"));
+            }
+            throw new UnsupportedOperationException(name);
+        });
+        MembershipService membershipService = new MembershipService(userCompanyRepository,
+                new MembershipCache(userCompanyRepository, new LocalInvalidationBus(), 100));
+
+        authenticationService = new AuthenticationService(userRepository, null, jwtService, tokenRepository, null,
+                null, null, null, null, membershipService, null, null);
+    }
+
+    @Test
+    void refreshRotatesTheFamilyToken() {
+        String first = issue("token-0");
+
+        ResponseEntity<AuthenticationResponse> refreshed = refresh(first);
+
+        assertEquals(HttpStatus.OK, refreshed.getStatusCode());
+        String second = refreshed.getBody().getRefreshToken();
+        assertNotNull(second);
+        assertEquals(FAMILY, jwtService.extractFamilyId(second));
+        assertEquals(jwtService.extractAllClaims(second).getId(), families.get(FAMILY).tokenId);
+        assertEquals(HttpStatus.OK, refresh(second).getStatusCode());
+    }
+
+    @Test
+    void replayedTokenRevokesTheWholeFamily() {
+        String first = issue("token-0");
+        String second = refresh(first).getBody().getRefreshToken();
+
+        // The rotated-out token comes back: treated as stolen
+        assertEquals(HttpStatus.UNAUTHORIZED, refresh(first).getStatusCode());
+        assertTrue(families.get(FAMILY).loggedOut);
+
+        // The legitimate holder's current token dies with the family
+        assertEquals(HttpStatus.UNAUTHORIZED, refresh(second).getStatusCode());
+    }
+
+    @Test
+    void concurrentRefreshWithTheSameTokenLetsOnlyOneThrough() {
+        String first = issue("token-0");
+
+        assertEquals(HttpStatus.OK, refresh(first).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, refresh(first).getStatusCode());
+        assertTrue(families.get(FAMILY).loggedOut);
+    }
+
+    @Test
+    void tokenWithoutFamilyIsRejectedWithoutTouchingFamilies() {
+        String legacy = jwtService.generateRefreshToken("alice", COMPANY_ID, "Acme", null, "token-0");
+        families.put(FAMILY, new Family("token-0"));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, refresh(legacy).getStatusCode());
+        assertFalse(families.get(FAMILY).loggedOut);
+    }
+
+    private String issue(String tokenId) {
+        families.put(FAMILY, new Family(tokenId));
+        return jwtService.generateRefreshToken("alice", COMPANY_ID, "Acme", FAMILY, tokenId);
+    }
+
+    private ResponseEntity<AuthenticationResponse> refresh(String refreshToken) {
+        HttpServletRequest request = fake(HttpServletRequest.class, (name, args) -> {
+            if (name.equals("getCookies")) {
+                return new Cookie[]{new Cookie("refresh_token", refreshToken)};
+            }
+            throw new UnsupportedOperationException(name);
+        });
+        return authenticationService.refreshToken(request, null);
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.apply(method.getName(), args));
+    }
+
+    private interface Answer {
+        Object apply(String method, Object[] args);
+    }
+
+    private static final class Family {
+        private String tokenId;
+        private boolean loggedOut;
+
+        private Family(String tokenId) {
+            this.tokenId = tokenId;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.dto.BulkJob;
+import com.joe.springsecurity.auth.dto.BulkMembershipRequest;
+import com.joe.springsecurity.auth.repo.UserRepository;
+import com.joe.springsecurity.cache.LocalInvalidationBus;
+import com.joe.springsecurity.company.repo.CompanyRepository;
+import com.joe.springsecurity.company.repo.UserCompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkMembershipServiceTest {
+
+    private static final Long COMPANY_ID = 10L;
+
+    // Rows of user_companies for COMPANY_ID
+    private final Set<Long> members = new HashSet<>();
+    private final List<List<Long>> insertedBatches = new ArrayList<>();
+    // What the driver reports per row: its real count, or SUCCESS_NO_INFO as with rewriteBatchedStatements
+    private boolean rewrittenBatches;
+    private BulkMembershipService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Set<Long> users = Set.of(1L, 2L, 3L, 4L, 5L);
+        UserRepository userRepository = fake(UserRepository.class, (name, args) -> {
+            switch (name) {
+                case "findExistingIds":
+                    return existing((Collection<Long>) args[0], users);
+                case "findIdsByUsernames":
+                    return List.of();
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+        CompanyRepository companyRepository = fake(CompanyRepository.class, (name, args) -> {
+            if (name.equals("findExistingIds")) {
+                return existing((Collection<Long>) args[0], Set.of(COMPANY_ID));
+            }
+            throw new UnsupportedOperationException(name);
+        });
+        // Only the per-batch lookup is answered; a company-wide scan or count would fail the test
+        UserCompanyRepository userCompanyRepository = fake(UserCompanyRepository.class, (name, args) -> {
+            if (name.equals("findMemberIds")) {
+                return existing((Collection<Long>) args[1], members);
+            }
+            throw new UnsupportedOperationException(name);
+        });
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                insertedBatches.add(new ArrayList<>((Collection<Long>) batchArgs));
+                int[] counts = new int[batchArgs.size()];
+                int i = 0;
+                for (T userId : batchArgs) {
+                    boolean added = members.add((Long) userId);
+                    counts[i++] = rewrittenBatches ? Statement.SUCCESS_NO_INFO : (added ? 1 : 0);
+                }
+                return new int[][]{counts};
+            }
+        };
+        PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+        service = new BulkMembershipService(userRepository, companyRepository, userCompanyRepository,
+                new MembershipCache(userCompanyRepository, new LocalInvalidationBus(), 100),
+                new BulkJobRegistry(Runnable::run, 3_600_000), jdbcTemplate, transactionManager, 500, 1000, 2);
+    }
+
+    @Test
+    void existingMembersAreSkippedWithoutBeingInserted() {
+        members.addAll(List.of(1L, 2L));
+
+        BulkJob job = service.assign(request(1L, 2L, 3L, 4L, 3L, 99L));
+
+        assertEquals(BulkJob.Status.COMPLETED, job.getStatus(), job.getMessage());
+        // Batches of two: (1, 2) are all members already, (3, 4) are new
+        assertEquals(List.of(List.of(3L, 4L)), insertedBatches);
+        assertEquals(2, job.getSucceeded());
+        // 1 and 2 already members, 3 repeated
+        assertEquals(3, job.getSkipped());
+        assertEquals(1, job.getFailed());
+        assertEquals(6, job.getProcessed());
+        assertEquals(Set.of(1L, 2L, 3L, 4L), members);
+    }
+
+    @Test
+    void rewrittenBatchesAreCountedFromTheLookup() {
+        rewrittenBatches = true;
+        members.add(5L);
+
+        BulkJob job = service.assign(request(3L, 4L, 5L));
+
+        assertEquals(2, job.getSucceeded());
+        assertEquals(1, job.getSkipped());
+    }
+
+    private static BulkMembershipRequest request(Long... userIds) {
+        BulkMembershipRequest.CompanyMembers entry = new BulkMembershipRequest.CompanyMembers();
+        entry.setCompanyId(COMPANY_ID);
+        entry.setUserIds(List.of(userIds));
+        BulkMembershipRequest request = new BulkMembershipRequest();
+        request.setCompanies(List.of(entry));
+        return request;
+    }
+
+    private static List<Long> existing(Collection<Long> ids, Set<Long> known) {
+        return ids.stream().filter(known::contains).collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.apply(method.getName(), args));
+    }
+
+    private interface Answer {
+        Object apply(String method, Object[] args);
+    }
+}
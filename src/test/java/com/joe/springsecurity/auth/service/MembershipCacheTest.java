@@ -0,0 +1,106 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.dto.CompanyMembership;
+import com.joe.springsecurity.cache.LocalInvalidationBus;
+import com.joe.springsecurity.company.repo.UserCompanyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MembershipCacheTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final Map<Long, List<CompanyMembership>> rows = new HashMap<>();
+    private int loads;
+    private MembershipCache cache;
+
+    @BeforeEach
+    void setUp() {
+        rows.put(USER_ID, List.of(new CompanyMembership(1L, "Acme")));
+        // Only the two queries the cache issues are answered
+        UserCompanyRepository repository = (UserCompanyRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{UserCompanyRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findMembershipsByUserId":
+                            loads++;
+                            return rows.getOrDefault((Long) args[0], List.of());
+                        case "findUserIdsByCompanyId":
+                            return List.copyOf(rows.keySet());
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        cache = new MembershipCache(repository, new LocalInvalidationBus(), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(cache);
+    }
+
+    @Test
+    void loadsOnceUntilEvicted() {
+        assertEquals(1, cache.get(USER_ID).size());
+        assertEquals(1, cache.get(USER_ID).size());
+        assertEquals(1, loads);
+
+        cache.evict(USER_ID);
+        assertNull(cache.peek(USER_ID));
+        cache.get(USER_ID);
+        assertEquals(2, loads);
+    }
+
+    @Test
+    void changingTransactionNeverFillsTheCache() {
+        List<CompanyMembership> committed = cache.get(USER_ID);
+        TransactionSynchronizationManager.initSynchronization();
+
+        rows.put(USER_ID, List.of(new CompanyMembership(1L, "Acme"), new CompanyMembership(2L, "Globex")));
+        cache.evict(USER_ID);
+        // The changing transaction sees its own rows, straight from the database
+        assertEquals(2, cache.get(USER_ID).size());
+        assertNull(cache.peek(USER_ID));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        // Before commit other callers still get the committed list
+        assertEquals(committed, cache.peek(USER_ID));
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertNull(cache.peek(USER_ID));
+        assertEquals(2, cache.get(USER_ID).size());
+    }
+
+    @Test
+    void rolledBackChangeLeavesTheCacheAlone() {
+        List<CompanyMembership> committed = cache.get(USER_ID);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evictAll();
+        cache.get(USER_ID);
+        cache.get(99L);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(committed, cache.peek(USER_ID));
+        assertNull(cache.peek(99L));
+    }
+}
@@ -0,0 +1,81 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Contended throughput of tryAcquire; run with -Dbenchmark=true. The floor is deliberately low so it only catches
+// a regression to locking (e.g. a synchronized bucket), and can be raised with -Dbenchmark.rate-limiter.min-calls-per-second.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RateLimiterBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiterBenchmarkTest.class);
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 200_000;
+    private static final long ONE_HOUR = TimeUnit.HOURS.toNanos(1);
+
+    private final long minCallsPerSecond = Long.getLong("benchmark.rate-limiter.min-calls-per-second", 1_000_000L);
+
+    @Test
+    void oneHotKey() throws Exception {
+        measure("one hot key", false);
+    }
+
+    @Test
+    void keyPerThread() throws Exception {
+        measure("key per thread", true);
+    }
+
+    private void measure(String scenario, boolean keyPerThread) throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxKeys(1_000);
+        RateLimiter limiter = new RateLimiter(properties);
+        // First round warms up the JIT and is not reported
+        run(limiter, keyPerThread);
+        long callsPerSecond = run(limiter, keyPerThread);
+
+        logger.info("RateLimiter {}: {} threads, {} calls/s", scenario, THREADS, callsPerSecond);
+        assertTrue(callsPerSecond >= minCallsPerSecond,
+                scenario + ": " + callsPerSecond + " calls/s is below " + minCallsPerSecond);
+    }
+
+    private static long run(RateLimiter limiter, boolean keyPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String key = keyPerThread ? "client" + t : "shared";
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        limiter.tryAcquire("api", key, 100, ONE_HOUR);
+                    }
+                    return null;
+                }));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+            long elapsed = System.nanoTime() - began;
+            return (long) THREADS * CALLS_PER_THREAD * TimeUnit.SECONDS.toNanos(1) / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.joe.springsecurity.auth.service;
+
+import com.joe.springsecurity.auth.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    // Long enough that no token is refilled while a test runs
+    private static final long ONE_HOUR = TimeUnit.HOURS.toNanos(1);
+
+    private static RateLimiter limiter(int maxKeys) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxKeys(maxKeys);
+        return new RateLimiter(properties);
+    }
+
+    @Test
+    void allowsCapacityThenRejectsWithWait() {
+        RateLimiter limiter = limiter(100);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, limiter.tryAcquire("login", "alice", 5, ONE_HOUR));
+        }
+        long wait = limiter.tryAcquire("login", "alice", 5, ONE_HOUR);
+        assertTrue(wait > 0 && wait <= ONE_HOUR, "wait " + wait);
+        // Other keys and routes have their own buckets
+        assertEquals(0L, limiter.tryAcquire("login", "bob", 5, ONE_HOUR));
+        assertEquals(0L, limiter.tryAcquire("reset", "alice", 5, ONE_HOUR));
+    }
+
+    @Test
+    void checkDoesNotTakeTokens() {
+        RateLimiter limiter = limiter(100);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0L, limiter.check("login", "alice", 3, ONE_HOUR));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0L, limiter.tryAcquire("login", "alice", 3, ONE_HOUR));
+        }
+        assertTrue(limiter.check("login", "alice", 3, ONE_HOUR) > 0);
+        assertEquals(3L, limiter.metrics().get("allowed"));
+        assertEquals(0L, limiter.metrics().get("rejected"));
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedCapacity() throws Exception {
+        RateLimiter limiter = limiter(100);
+        int threads = 16;
+        int attemptsPerThread = 2_000;
+        int capacity = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (limiter.tryAcquire("api", "shared", capacity, ONE_HOUR) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(capacity, allowed);
+            assertEquals((long) capacity, limiter.metrics().get("allowed"));
+            assertEquals((long) threads * attemptsPerThread - capacity, limiter.metrics().get("rejected"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void evictionDropsRefilledBucketsAndKeepsDrainedOnes() throws Exception {
+        RateLimiter limiter = limiter(100);
+        limiter.tryAcquire("login", "idle", 1, 1);
+        limiter.tryAcquire("login", "drained", 1, ONE_HOUR);
+        Thread.sleep(2);
+
+        limiter.evict();
+
+        assertEquals(1, limiter.metrics().get("trackedKeys"));
+        assertTrue(limiter.tryAcquire("login", "drained", 1, ONE_HOUR) > 0);
+    }
+
+    @Test
+    void newKeysNeverGrowTheMapPastMaxKeys() {
+        RateLimiter limiter = limiter(100);
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("login", "sprayed" + i, 1, ONE_HOUR);
+            assertTrue((int) limiter.metrics().get("trackedKeys") <= 100, "tracked " + limiter.metrics().get("trackedKeys"));
+        }
+        // Each inline eviction trims to 90 keys, leaving room for ten new ones before the next
+        long inlineRuns = (long) limiter.metrics().get("inlineEvictionRuns");
+        assertTrue(inlineRuns > 0 && inlineRuns <= 90, "inline runs " + inlineRuns);
+        // The newest key is still limited
+        assertTrue(limiter.tryAcquire("login", "sprayed999", 1, ONE_HOUR) > 0);
+    }
+
+    @Test
+    void evictionTrimsLeastRecentlySeenPastMaxKeys() {
+        RateLimiter limiter = limiter(10);
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("login", "user" + i, 1, ONE_HOUR);
+        }
+
+        limiter.evict();
+
+        assertTrue((int) limiter.metrics().get("trackedKeys") <= 10, "tracked " + limiter.metrics().get("trackedKeys"));
+    }
+}
@@ -0,0 +1,269 @@
+package com.joe.springsecurity.cache;
+
+import com.joe.springsecurity.auth.dto.CompanyMembership;
+import com.joe.springsecurity.auth.service.MembershipCache;
+import com.joe.springsecurity.company.repo.UserCompanyRepository;
+import com.joe.springsecurity.inventory.dto.ItemCategorySummary;
+import com.joe.springsecurity.inventory.enums.ItemType;
+import com.joe.springsecurity.inventory.repo.ItemCategoryRepository;
+import com.joe.springsecurity.inventory.service.ItemCategoryCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DatabaseInvalidationBusTest {
+
+    private final OutboxTable table = new OutboxTable();
+    private final List<String> delivered = new ArrayList<>();
+    private DatabaseInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new DatabaseInvalidationBus(table, 60_000, 3_600_000);
+        bus.subscribe(InvalidationBus.COMPANIES, delivered::add);
+        bus.poll();
+    }
+
+    @Test
+    void deliversCommittedRowsOfOtherNodesOnce() {
+        table.commit(1, "other-node", "10");
+        table.commit(2, "other-node", "11");
+        bus.poll();
+        bus.poll();
+
+        assertEquals(List.of("10", "11"), delivered);
+    }
+
+    @Test
+    void rowCommittedAfterAHigherIdIsStillDelivered() {
+        // id 1 belongs to a transaction still open when id 2 commits
+        table.commit(2, "other-node", "20");
+        bus.poll();
+        assertEquals(List.of("20"), delivered);
+        assertEquals(1, bus.metrics().get("openGaps"));
+
+        table.commit(1, "other-node", "10");
+        bus.poll();
+
+        assertEquals(List.of("20", "10"), delivered);
+        assertEquals(0, bus.metrics().get("openGaps"));
+        assertEquals(1L, bus.metrics().get("gapsFilled"));
+    }
+
+    @Test
+    void rolledBackIdExpiresAfterTheGapTimeout() throws Exception {
+        DatabaseInvalidationBus shortTimeout = new DatabaseInvalidationBus(table, 1, 3_600_000);
+        shortTimeout.poll();
+        table.commit(2, "other-node", "20");
+        shortTimeout.poll();
+        Thread.sleep(5);
+
+        shortTimeout.poll();
+
+        assertEquals(0, shortTimeout.metrics().get("openGaps"));
+        assertEquals(1L, shortTimeout.metrics().get("gapsExpired"));
+    }
+
+    @Test
+    void openGapsAreCapped() {
+        // 10002 ids below the first committed row are open; only the first 10000 are tracked
+        table.commit(10_003, "other-node", "40");
+        bus.poll();
+
+        assertEquals(List.of("40"), delivered);
+        assertEquals(10_000, bus.metrics().get("openGaps"));
+        assertEquals(2L, bus.metrics().get("gapsExpired"));
+    }
+
+    @Test
+    void ownRowsAreNotDeliveredAgain() {
+        bus.publish(InvalidationBus.COMPANIES, "30");
+        assertEquals(List.of("30"), delivered);
+
+        bus.poll();
+
+        assertEquals(List.of("30"), delivered);
+    }
+
+    @Test
+    void otherNodesCachesAreEvictedIncludingByARowThatCommitsLate() {
+        Node a = new Node(table, 60_000);
+        Node b = new Node(table, 60_000);
+        b.warm();
+
+        // A's membership change takes id 1 but is still uncommitted when its category change commits as id 2
+        table.holdNextInsert();
+        a.memberships.evict(Node.USER_ID);
+        a.categories.evict(List.of(Node.CATEGORY_ID));
+        b.bus.poll();
+
+        assertEquals(0, b.categories.metrics().get("entries"));
+        assertNotNull(b.memberships.peek(Node.USER_ID));
+        assertEquals(1, b.bus.metrics().get("openGaps"));
+
+        table.commitHeld();
+        b.bus.poll();
+
+        assertNull(b.memberships.peek(Node.USER_ID));
+        assertEquals(0, b.bus.metrics().get("openGaps"));
+        assertEquals(1L, b.bus.metrics().get("gapsFilled"));
+        // A never hears its own rows back from the table
+        assertEquals(0L, a.bus.metrics().get("received"));
+    }
+
+    @Test
+    void otherNodeGivesUpOnAnIdWhoseTransactionRolledBack() throws Exception {
+        Node a = new Node(table, 60_000);
+        Node b = new Node(table, 1);
+        b.warm();
+
+        table.holdNextInsert();
+        a.memberships.evict(Node.USER_ID);
+        a.categories.evict(List.of(Node.CATEGORY_ID));
+        table.rollbackHeld();
+        b.bus.poll();
+        Thread.sleep(5);
+        b.bus.poll();
+
+        assertEquals(0, b.bus.metrics().get("openGaps"));
+        assertEquals(1L, b.bus.metrics().get("gapsExpired"));
+        assertNotNull(b.memberships.peek(Node.USER_ID));
+        assertEquals(0, b.categories.metrics().get("entries"));
+    }
+
+    // One application node: its own bus on the shared table, with the caches that subscribe to it
+    private static final class Node {
+        static final Long USER_ID = 7L;
+        static final Long CATEGORY_ID = 5L;
+
+        final DatabaseInvalidationBus bus;
+        final ItemCategoryCache categories;
+        final MembershipCache memberships;
+
+        Node(OutboxTable table, long gapTimeoutMillis) {
+            bus = new DatabaseInvalidationBus(table, gapTimeoutMillis, 3_600_000);
+            ItemCategoryRepository categoryRepository = fake(ItemCategoryRepository.class, "findSummaryById",
+                    Optional.of(new ItemCategorySummary(CATEGORY_ID, 1L, "Fasteners", ItemType.GOODS)));
+            UserCompanyRepository membershipRepository = fake(UserCompanyRepository.class, "findMembershipsByUserId",
+                    List.of(new CompanyMembership(1L, "Acme")));
+            categories = new ItemCategoryCache(categoryRepository, bus, 100);
+            memberships = new MembershipCache(membershipRepository, bus, 100);
+            bus.poll();
+        }
+
+        void warm() {
+            categories.get(CATEGORY_ID);
+            memberships.get(USER_ID);
+            assertEquals(1, categories.metrics().get("entries"));
+            assertNotNull(memberships.peek(USER_ID));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T fake(Class<T> type, String methodName, Object result) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals(methodName)) {
+                            return result;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    // Committed rows of cms_invalidation_events, answering only the statements the bus issues
+    private static final class OutboxTable extends JdbcTemplate {
+        private final TreeMap<Long, String[]> rows = new TreeMap<>();
+        // Inserted by a transaction that has not committed: the id is taken but the row is not visible
+        private final Map<Long, String[]> held = new TreeMap<>();
+        private boolean holdNext;
+        private long nextId = 1;
+
+        void commit(long id, String origin, String key) {
+            rows.put(id, new String[]{InvalidationBus.COMPANIES, key, origin});
+            nextId = Math.max(nextId, id + 1);
+        }
+
+        void holdNextInsert() {
+            holdNext = true;
+        }
+
+        void commitHeld() {
+            rows.putAll(held);
+            held.clear();
+        }
+
+        void rollbackHeld() {
+            held.clear();
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            // INSERT from send(): visible at once, as if the caller committed, unless it is being held
+            String[] row = {(String) args[0], (String) args[1], (String) args[2]};
+            (holdNext ? held : rows).put(nextId++, row);
+            holdNext = false;
+            return 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            if (sql.contains("auto_increment_increment")) {
+                return (T) Long.valueOf(1);
+            }
+            return (T) Long.valueOf(0);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            List<Long> ids = new ArrayList<>();
+            if (sql.contains("IN (")) {
+                for (Object arg : args) {
+                    if (rows.containsKey((Long) arg)) {
+                        ids.add((Long) arg);
+                    }
+                }
+            } else {
+                long after = (Long) args[0];
+                rows.keySet().stream().filter(id -> id > after).forEach(ids::add);
+            }
+            for (Long id : ids) {
+                String[] row = rows.get(id);
+                try {
+                    handler.processRow(resultSet(id, row));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        private static ResultSet resultSet(long id, String[] row) {
+            List<String> columns = Arrays.asList("cache_name", "cache_key", "origin");
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, methodArgs) -> {
+                        switch (method.getName()) {
+                            case "getLong":
+                                return id;
+                            case "getString":
+                                return row[columns.indexOf((String) methodArgs[0])];
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.joe.springsecurity.country.repo;
+
+import com.joe.springsecurity.country.model.Country;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Needs the configured MySQL database; run with -Dbenchmark=true. Rows it inserts are deleted afterwards.
+// Both runs use the pooled-lo id generator; the baseline turns JDBC batching off for its session only.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CountryBatchInsertBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CountryBatchInsertBenchmarkTest.class);
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void batchedInsertsNeedFarFewerStatementsThanRowByRow() {
+        // Warm-up: connection pool, statement cache and JIT, not reported
+        insert(500, false);
+        insert(500, true);
+
+        Run rowByRow = insert(ROWS, false);
+        Run batched = insert(ROWS, true);
+
+        logger.info("Country inserts, {} rows: row by row {} ms / {} statements, batched {} ms / {} statements " +
+                        "({}x fewer statements, {}x faster)",
+                ROWS, rowByRow.millis, rowByRow.statements, batched.millis, batched.statements,
+                String.format("%.1f", (double) rowByRow.statements / batched.statements),
+                String.format("%.1f", (double) rowByRow.millis / Math.max(1, batched.millis)));
+
+        // Row by row is one INSERT per row; batched is one per 50 rows plus one generator round trip per 50 ids
+        assertTrue(rowByRow.statements >= ROWS, "row by row used " + rowByRow.statements + " statements");
+        assertTrue(batched.statements * 10 < rowByRow.statements,
+                "batched used " + batched.statements + " statements against " + rowByRow.statements);
+    }
+
+    private Run insert(int rows, boolean batched) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<Country> countries = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            countries.add(new Country("Benchmark " + i, "BM" + i, "Benchmark"));
+        }
+
+        long start = System.nanoTime();
+        List<Country> saved = transactionTemplate.execute(status -> {
+            if (!batched) {
+                // Batch size 1 makes Hibernate send each INSERT on its own
+                entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            }
+            List<Country> result = countryRepository.saveAll(countries);
+            countryRepository.flush();
+            return result;
+        });
+        Run run = new Run((System.nanoTime() - start) / 1_000_000, statistics.getPrepareStatementCount());
+        assertEquals(rows, statistics.getEntityInsertCount());
+
+        List<Long> ids = saved.stream().map(Country::getId).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> countryRepository.deleteAllByIdInBatch(ids));
+        return run;
+    }
+
+    private static final class Run {
+        private final long millis;
+        private final long statements;
+
+        private Run(long millis, long statements) {
+            this.millis = millis;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.joe.springsecurity.inventory.repo;
+
+import com.joe.springsecurity.inventory.dto.InventoryItemFilter;
+import com.joe.springsecurity.inventory.enums.ItemType;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The SQL behind each filter combination, generated by Hibernate from the real mappings without a database;
+ * numeric criteria literals are inlined, as they are in the application. Each starts with company_id, filters or sorts on the second column of a (company_id, ...) index and ends its
+ * ORDER BY on id, so MySQL can walk the index instead of sorting. Whether MySQL picks the index still needs
+ * EXPLAIN against a real database.
+ */
+class InventoryItemFilterQueryTest {
+
+    private final List<String> sql = new ArrayList<>();
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        // Never connected to: JDBC metadata lookups are off and no query is executed
+        factoryBean.setDataSource(new DriverManagerDataSource("jdbc:mysql://localhost:3306/unused"));
+        factoryBean.setPackagesToScan("com.joe.springsecurity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // Same naming strategies as Spring Boot, so columns get their real names
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName(),
+                "hibernate.dialect", "org.hibernate.dialect.MySQL5InnoDBDialect",
+                "hibernate.temp.use_jdbc_metadata_defaults", "false",
+                "hibernate.hbm2ddl.auto", "none"));
+        factoryBean.afterPropertiesSet();
+        entityManager = factoryBean.getObject().createEntityManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManager.close();
+        factoryBean.destroy();
+    }
+
+    @Test
+    void companyOnlyIsOrderedById() {
+        assertEquals("where company_id=1 order by id asc", filter(new InventoryItemFilter(), Sort.unsorted()));
+    }
+
+    @Test
+    void categoryUsesTheCompanyCategoryIndex() {
+        InventoryItemFilter filter = new InventoryItemFilter();
+        filter.setCategoryId(3L);
+
+        assertEquals("where company_id=1 and item_category_id=3 order by name asc, id asc",
+                filter(filter, Sort.by("name")));
+    }
+
+    @Test
+    void itemTypeJoinsTheCategoryOnItsKey() {
+        InventoryItemFilter filter = new InventoryItemFilter();
+        filter.setItemType(ItemType.GOODS);
+
+        String where = filter(filter, Sort.unsorted());
+
+        assertTrue(lastQuery().contains("inner join cms_item_categories"), lastQuery());
+        assertEquals("where company_id=1 and item_type=? order by id asc", where);
+    }
+
+    @Test
+    void priceRangeSortedByPrice() {
+        InventoryItemFilter filter = new InventoryItemFilter();
+        filter.setMinPrice(1.0);
+        filter.setMaxPrice(9.5);
+
+        assertEquals("where company_id=1 and (price between 1.0 and 9.5) order by price desc, id asc",
+                filter(filter, Sort.by(Sort.Direction.DESC, "price")));
+    }
+
+    @Test
+    void openEndedRangesUseOneBound() {
+        InventoryItemFilter minPrice = new InventoryItemFilter();
+        minPrice.setMinPrice(2.0);
+        InventoryItemFilter maxQuantity = new InventoryItemFilter();
+        maxQuantity.setMaxQuantity(5);
+
+        assertEquals("where company_id=1 and price>=2.0 order by price asc, id asc", filter(minPrice, Sort.by("price")));
+        assertEquals("where company_id=1 and quantity<=5 order by quantity asc, id asc",
+                filter(maxQuantity, Sort.by("quantity")));
+    }
+
+    @Test
+    void namePrefixIsAnEscapedLike() {
+        InventoryItemFilter filter = new InventoryItemFilter();
+        filter.setNamePrefix("bo");
+
+        assertEquals("where company_id=1 and (name like ? escape ?) order by name asc, id asc",
+                filter(filter, Sort.by("name")));
+    }
+
+    @Test
+    void lowStockUsesTheFlag() {
+        InventoryItemFilter filter = new InventoryItemFilter();
+        filter.setLowStock(true);
+
+        assertEquals("where company_id=1 and low_stock=? order by id asc", filter(filter, Sort.unsorted()));
+    }
+
+    @Test
+    void everyCriterionTogether() {
+        InventoryItemFilter filter = new InventoryItemFilter();
+        filter.setCategoryId(3L);
+        filter.setItemType(ItemType.GOODS);
+        filter.setMinPrice(1.0);
+        filter.setMaxPrice(9.5);
+        filter.setMinQuantity(1);
+        filter.setMaxQuantity(5);
+        filter.setNamePrefix("bo");
+        filter.setLowStock(false);
+
+        assertEquals("where company_id=1 and item_category_id=3 and item_type=? and (price between 1.0 and 9.5) " +
+                        "and (quantity between 1 and 5) and (name like ? escape ?) and low_stock=? " +
+                        "order by quantity asc, id asc",
+                filter(filter, Sort.by("quantity")));
+    }
+
+    @Test
+    void explicitIdSortIsNotRepeated() {
+        assertEquals("where company_id=1 order by id desc",
+                filter(new InventoryItemFilter(), Sort.by(Sort.Direction.DESC, "id")));
+    }
+
+    // Runs findDtos and returns the WHERE and ORDER BY of its SQL, with table aliases removed
+    private String filter(InventoryItemFilter filter, Sort sort) {
+        Pageable pageable = PageRequest.of(0, 20, sort);
+        new InventoryItemDtoRepositoryImpl(recordingEntityManager())
+                .findDtos(InventoryItemSpecifications.forCompany(1L, filter), pageable);
+        String query = lastQuery();
+        return query.substring(query.indexOf(" where ") + 1);
+    }
+
+    private String lastQuery() {
+        return sql.get(sql.size() - 1).replaceAll("\\w+_\\.", "");
+    }
+
+    // Records the SQL of each criteria query instead of running it
+    private EntityManager recordingEntityManager() {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("createQuery") && args[0] instanceof CriteriaQuery) {
+                        String hql = entityManager.createQuery((CriteriaQuery<?>) args[0]).unwrap(Query.class).getQueryString();
+                        sql.add(sessionFactory.getQueryPlanCache()
+                                .getHQLQueryPlan(hql, false, Collections.emptyMap()).getSqlStrings()[0]);
+                        return emptyResult();
+                    }
+                    try {
+                        return method.invoke(entityManager, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static TypedQuery<?> emptyResult() {
+        return (TypedQuery<?>) Proxy.newProxyInstance(TypedQuery.class.getClassLoader(), new Class<?>[]{TypedQuery.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getResultList":
+                            return List.of();
+                        case "getSingleResult":
+                            return 0L;
+                        default:
+                            return proxy;
+                    }
+                });
+    }
+}
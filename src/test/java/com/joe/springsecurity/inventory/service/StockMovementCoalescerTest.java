@@ -0,0 +1,185 @@
+package com.joe.springsecurity.inventory.service;
+
+import com.joe.springsecurity.inventory.enums.MovementStatus;
+import com.joe.springsecurity.inventory.repo.InventoryItemRepository;
+import com.joe.springsecurity.inventory.repo.StockMovementRepository;
+import com.joe.springsecurity.utils.CollectionVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockMovementCoalescerTest {
+
+    private static final Long ITEM_ID = 5L;
+    private static final Long COMPANY_ID = 1L;
+
+    // Committed state; each transaction works on it directly and is undone on rollback
+    private final Map<Long, Integer> quantities = new HashMap<>();
+    private final Map<Long, MovementStatus> statuses = new HashMap<>();
+    private final List<Integer> adjustments = new ArrayList<>();
+    private StockMovementCoalescer coalescer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        InventoryItemRepository items = fake(InventoryItemRepository.class, (name, args) -> {
+            switch (name) {
+                case "adjustQuantity":
+                    int delta = (Integer) args[2];
+                    adjustments.add(delta);
+                    Integer quantity = quantities.get((Long) args[0]);
+                    if (quantity == null || quantity + delta < 0) {
+                        return 0;
+                    }
+                    quantities.put((Long) args[0], quantity + delta);
+                    return 1;
+                case "markLowStock":
+                case "clearLowStock":
+                    return 0;
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+        StockMovementRepository movements = fake(StockMovementRepository.class, (name, args) -> {
+            if (!name.equals("transition")) {
+                throw new UnsupportedOperationException(name);
+            }
+            int updated = 0;
+            // Like the UPDATE ... WHERE id IN (:ids), a repeated id matches its row once
+            for (Long id : new LinkedHashSet<>((Collection<Long>) args[0])) {
+                if (statuses.get(id) == args[1]) {
+                    statuses.put(id, (MovementStatus) args[2]);
+                    updated++;
+                }
+            }
+            return updated;
+        });
+        JdbcTemplate versions = new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                return 1;
+            }
+        };
+        coalescer = new StockMovementCoalescer(movements, items, new CollectionVersionService(versions),
+                new LowStockEvaluator(items, event -> { }), new SnapshotTransactionManager(), 60_000);
+    }
+
+    @Test
+    void netsAnItemsMovementsIntoOneUpdate() {
+        quantities.put(ITEM_ID, 10);
+        record(1L, 5);
+        record(2L, -3);
+        record(3L, -4);
+
+        coalescer.flush();
+
+        assertEquals(List.of(-2), adjustments);
+        assertEquals(8, (int) quantities.get(ITEM_ID));
+        assertStatuses(MovementStatus.APPLIED, MovementStatus.APPLIED, MovementStatus.APPLIED);
+        assertEquals(3L, coalescer.metrics().get("movementsApplied"));
+        assertEquals(0L, coalescer.metrics().get("queuedMovements"));
+    }
+
+    @Test
+    void fallsBackToOneMovementAtATimeWhenTheNetWouldGoNegative() {
+        quantities.put(ITEM_ID, 2);
+        record(1L, -5);
+        record(2L, 1);
+        record(3L, -1);
+
+        coalescer.flush();
+
+        // Net -5 fails as a whole, then each movement is settled in recorded order
+        assertEquals(List.of(-5, -5, 1, -1), adjustments);
+        assertEquals(2, (int) quantities.get(ITEM_ID));
+        assertStatuses(MovementStatus.REJECTED, MovementStatus.APPLIED, MovementStatus.APPLIED);
+        assertEquals(2L, coalescer.metrics().get("movementsApplied"));
+        assertEquals(1L, coalescer.metrics().get("movementsRejected"));
+    }
+
+    @Test
+    void movementQueuedTwiceIsAppliedOnce() {
+        quantities.put(ITEM_ID, 10);
+        record(1L, -1);
+        // The recovery pass re-queued it before the first copy was flushed
+        coalescer.enqueue(1L, ITEM_ID, COMPANY_ID, -1);
+
+        coalescer.flush();
+
+        assertEquals(9, (int) quantities.get(ITEM_ID));
+        assertEquals(MovementStatus.APPLIED, statuses.get(1L));
+        assertEquals(1L, coalescer.metrics().get("movementsApplied"));
+    }
+
+    @Test
+    void missingItemRejectsItsMovements() {
+        record(1L, 3);
+
+        coalescer.flush();
+
+        assertStatuses(MovementStatus.REJECTED);
+        assertEquals(1L, coalescer.metrics().get("movementsRejected"));
+    }
+
+    private void record(Long movementId, int delta) {
+        statuses.put(movementId, MovementStatus.PENDING);
+        coalescer.enqueue(movementId, ITEM_ID, COMPANY_ID, delta);
+    }
+
+    private void assertStatuses(MovementStatus... expected) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], statuses.get((long) i + 1), "movement " + (i + 1));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.apply(method.getName(), args));
+    }
+
+    private interface Answer {
+        Object apply(String method, Object[] args);
+    }
+
+    private final class SnapshotTransactionManager implements PlatformTransactionManager {
+        private Map<Long, Integer> savedQuantities;
+        private Map<Long, MovementStatus> savedStatuses;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            savedQuantities = new HashMap<>(quantities);
+            savedStatuses = new HashMap<>(statuses);
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            if (status.isRollbackOnly()) {
+                rollback(status);
+            }
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            quantities.clear();
+            quantities.putAll(savedQuantities);
+            statuses.clear();
+            statuses.putAll(savedStatuses);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.joe.springsecurity.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
+import com.joe.springsecurity.inventory.dto.ItemCategoryDTO;
+import com.joe.springsecurity.inventory.enums.ItemType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Streamed pages must have the same JSON shape as PageResponse, whatever fields the DTOs gain
+class PageJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void streamedItemPageMatchesPageResponse() throws Exception {
+        InventoryItemDTO withLevel = new InventoryItemDTO(1L, "Bolt", 12, 0.5, "M6 bolt", 7L);
+        withLevel.setReorderLevel(20);
+        InventoryItemDTO withoutLevel = new InventoryItemDTO(2L, "Nut", 0, 0.1, null, null);
+        Page<InventoryItemDTO> page = new PageImpl<>(List.of(withLevel, withoutLevel), PageRequest.of(1, 2), 9);
+
+        assertSameJson(page);
+    }
+
+    @Test
+    void streamedCategoryPageMatchesPageResponse() throws Exception {
+        ItemCategoryDTO category = new ItemCategoryDTO(3L, "Fasteners", ItemType.GOODS, "Bolts and nuts");
+        category.setReorderLevel(5);
+        Page<ItemCategoryDTO> page = new PageImpl<>(List.of(category, new ItemCategoryDTO()), PageRequest.of(0, 10), 2);
+
+        assertSameJson(page);
+    }
+
+    @Test
+    void emptyPageMatchesPageResponse() throws Exception {
+        assertSameJson(Page.empty(PageRequest.of(0, 20)));
+    }
+
+    private void assertSameJson(Page<?> page) throws Exception {
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        PageJsonWriter.write(streamed, objectMapper, page);
+
+        JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(PageResponse.of(page)));
+        assertEquals(expected, objectMapper.readTree(streamed.toByteArray()));
+    }
+}
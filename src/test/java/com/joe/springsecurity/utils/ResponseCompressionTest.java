@@ -0,0 +1,114 @@
+package com.joe.springsecurity.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joe.springsecurity.inventory.dto.InventoryItemDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A large /list page, with the ETag the list endpoints send, must leave Tomcat gzipped under server.compression.*
+class ResponseCompressionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private WebServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void largeListPageWithCollectionETagIsGzipped() throws Exception {
+        start(collectionETag());
+
+        HttpURLConnection connection = get();
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(collectionETag(), connection.getHeaderField(HttpHeaders.ETAG));
+        try (GZIPInputStream body = new GZIPInputStream(connection.getInputStream())) {
+            assertEquals(600, objectMapper.readTree(body).get("items").size());
+        }
+    }
+
+    @Test
+    void strongETagWouldDisableCompression() throws Exception {
+        // Guards the reason the collection ETag is weak: Tomcat's noCompressionStrongETag default
+        start(collectionETag().substring(2));
+
+        HttpURLConnection connection = get();
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(null, connection.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private static String collectionETag() {
+        JdbcTemplate versions = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                return (List<T>) Collections.singletonList(7L);
+            }
+        };
+        return new CollectionVersionService(versions).eTag(1L, CollectionVersionService.INVENTORY_ITEMS);
+    }
+
+    private void start(String eTag) throws IOException {
+        PropertySource<?> properties = new ResourcePropertySource(new ClassPathResource("application.properties"));
+        Compression compression = new Binder(ConfigurationPropertySources.from(properties))
+                .bind("server.compression", Compression.class)
+                .orElseThrow(() -> new IllegalStateException("server.compression is not configured"));
+        assertTrue(compression.getEnabled());
+
+        List<InventoryItemDTO> items = new ArrayList<>();
+        for (long id = 1; id <= 600; id++) {
+            items.add(new InventoryItemDTO(id, "Item " + id, 10, 2.5, "Description of item " + id, 3L));
+        }
+        HttpServlet list = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.setHeader(HttpHeaders.ETAG, eTag);
+                PageJsonWriter.write(response, objectMapper, new PageImpl<>(items, PageRequest.of(0, 600), 600));
+            }
+        };
+
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        factory.setCompression(compression);
+        server = factory.getWebServer(context -> context.addServlet("list", list).addMapping("/list"));
+        server.start();
+    }
+
+    private HttpURLConnection get() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/list")
+                .openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return connection;
+    }
+}